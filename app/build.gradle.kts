@@ -31,6 +31,15 @@ android {
     }
     buildFeatures {
         viewBinding = true
+        buildConfig = true
+    }
+    testOptions {
+        // android.util.Log & co. rendent une valeur par défaut au lieu de lever "not mocked" dans les tests JVM
+        unitTests.isReturnDefaultValues = true
+        unitTests.all {
+            // Mesures de débit exclues de la suite par défaut : ./gradlew test -Pbenchmark
+            it.systemProperty("driveup.benchmark", project.hasProperty("benchmark"))
+        }
     }
 }
 
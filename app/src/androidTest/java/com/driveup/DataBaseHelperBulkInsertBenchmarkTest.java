@@ -0,0 +1,134 @@
+package com.driveup;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.driveup.ui.ride.Ride;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Débit de {@link DataBaseHelper#insertRides} pour des imports de 10 000, 100 000 et 1 000 000 de courses,
+ * avec plusieurs tailles de lot (résultats dans logcat, tag "DbBulkInsertBench"). Les courses sont créées
+ * lot par lot, comme à l'import : seule l'écriture est chronométrée.
+ * <p>
+ * Les mesures sont hors de la suite par défaut : lancées seulement avec
+ * {@code ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.benchmark=true}.
+ * La vérification du chemin d'écriture sur un petit import, elle, tourne toujours.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataBaseHelperBulkInsertBenchmarkTest {
+
+    private static final String TEST_DB = "driveup-bulk-insert-test.db";
+    private static final String BENCH_TAG = "DbBulkInsertBench";
+    private static final int[] BATCH_SIZES = {1_000, 10_000};
+
+    private Context context;
+    private DataBaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DataBaseHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void smallImportIsWrittenAndSummarized() {
+        int rows = 2_500;
+        long expectedCents = 0;
+        List<Ride> batch = new ArrayList<>(1_000);
+        for (int i = 0; i < rows; i++) {
+            Ride ride = ride(i);
+            expectedCents += RideEncoding.toCents(ride.getPrice());
+            batch.add(ride);
+            if (batch.size() == 1_000 || i == rows - 1) {
+                helper.insertRides(batch);
+                batch.clear();
+            }
+        }
+
+        assertStored(rows);
+        assertEquals(expectedCents, DatabaseUtils.longForQuery(helper.getReadableDatabase(),
+                "SELECT SUM(price_cents) FROM ride", null));
+        assertEquals(expectedCents, DatabaseUtils.longForQuery(helper.getReadableDatabase(),
+                "SELECT SUM(total_cents) FROM daily_summary", null));
+        assertEquals(rows / 20, DatabaseUtils.longForQuery(helper.getReadableDatabase(),
+                "SELECT COUNT(*) FROM daily_summary", null));
+    }
+
+    @Test
+    public void insert10k() {
+        measure(10_000);
+    }
+
+    @Test
+    public void insert100k() {
+        measure(100_000);
+    }
+
+    @Test
+    public void insert1M() {
+        measure(1_000_000);
+    }
+
+    private void measure(int rows) {
+        assumeTrue("Mesure de débit : lancer avec l'argument d'instrumentation benchmark=true",
+                Boolean.parseBoolean(InstrumentationRegistry.getArguments().getString("benchmark")));
+        for (int batchSize : BATCH_SIZES) {
+            helper.deleteAllRides();
+            List<Ride> batch = new ArrayList<>(batchSize);
+            long insertNanos = 0;
+            for (int i = 0; i < rows; i++) {
+                batch.add(ride(i));
+                if (batch.size() == batchSize || i == rows - 1) {
+                    long start = SystemClock.elapsedRealtimeNanos();
+                    helper.insertRides(batch);
+                    insertNanos += SystemClock.elapsedRealtimeNanos() - start;
+                    batch.clear();
+                }
+            }
+
+            assertStored(rows);
+            Log.i(BENCH_TAG, String.format("%d courses, lots de %d : %.0f courses/s (%.0f ms)",
+                    rows, batchSize, rows * 1e9 / insertNanos, insertNanos / 1e6));
+        }
+    }
+
+    private void assertStored(int rows) {
+        long count = DatabaseUtils.longForQuery(helper.getReadableDatabase(), "SELECT COUNT(*) FROM ride", null);
+        assertEquals(rows, count);
+        long summarized = DatabaseUtils.longForQuery(helper.getReadableDatabase(),
+                "SELECT COALESCE(SUM(ride_count), 0) FROM daily_summary", null);
+        assertEquals(rows, summarized);
+    }
+
+    // Vingt courses par jour, réparties sur la journée, prix variés
+    private static Ride ride(int i) {
+        LocalTime start = LocalTime.of(6 + (i % 20) / 2 + (i % 20) / 4, (i * 7) % 60);
+        return new Ride(null, LocalDate.of(2015, 1, 1).plusDays(i / 20), start, start.plusMinutes(15 + i % 45),
+                8.5 + (i % 300) / 10.0);
+    }
+}
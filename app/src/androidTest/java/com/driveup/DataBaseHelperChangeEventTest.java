@@ -0,0 +1,115 @@
+package com.driveup;
+
+import android.content.Context;
+import android.database.DatabaseUtils;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.driveup.ui.ride.Ride;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Chaque écriture publie un seul changement, avec son type, sa plage de dates et la version produite.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataBaseHelperChangeEventTest {
+
+    private static final String TEST_DB = "driveup-change-event-test.db";
+
+    private Context context;
+    private DataBaseHelper helper;
+    private final List<RideChange> changes = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DataBaseHelper(context, TEST_DB);
+        helper.addChangeListener(changes::add);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void insertAndDeleteCarryTheRideAndItsDay() {
+        Ride ride = new Ride(null, LocalDate.of(2024, 6, 3), LocalTime.of(9, 0), LocalTime.of(9, 30), 14.0);
+        helper.insertRide(ride);
+        helper.deleteRide(ride.getId());
+
+        assertEquals(2, changes.size());
+        assertChange(changes.get(0), RideChange.Type.INSERT, ride.getDate(), ride.getDate());
+        assertEquals(ride, changes.get(0).getRide());
+        assertChange(changes.get(1), RideChange.Type.DELETE, ride.getDate(), ride.getDate());
+        assertEquals(ride, changes.get(1).getRide());
+        assertEquals(helper.getDataVersion(), changes.get(1).getDataVersion());
+        assertEquals(changes.get(0).getDataVersion() + 1, changes.get(1).getDataVersion());
+    }
+
+    @Test
+    public void freshHelperLoadsTheStoredVersion() {
+        helper.insertRide(new Ride(null, LocalDate.of(2024, 6, 3), LocalTime.of(9, 0), LocalTime.of(9, 30), 14.0));
+        helper.insertRide(new Ride(null, LocalDate.of(2024, 6, 4), LocalTime.of(9, 0), LocalTime.of(9, 30), 16.0));
+        long stored = helper.getDataVersion();
+        helper.close();
+
+        // Démarrage à froid : base pas encore ouverte, la version est lue dans meta à l'ouverture
+        helper = new DataBaseHelper(context, TEST_DB);
+        assertEquals(stored, helper.loadDataVersion());
+        assertEquals(stored, helper.getDataVersion());
+        assertEquals(stored, DatabaseUtils.longForQuery(helper.getReadableDatabase(),
+                "SELECT value FROM meta WHERE key = 'data_version'", null));
+    }
+
+    @Test
+    public void bulkInsertSpansImportedDates() {
+        helper.insertRides(Arrays.asList(
+                new Ride(null, LocalDate.of(2023, 2, 14), LocalTime.of(8, 0), LocalTime.of(8, 20), 9.0),
+                new Ride(null, LocalDate.of(2022, 11, 2), LocalTime.of(18, 0), LocalTime.of(18, 40), 21.0),
+                new Ride(null, LocalDate.of(2023, 1, 5), LocalTime.of(12, 0), LocalTime.of(12, 15), 7.5)));
+
+        assertEquals(1, changes.size());
+        assertChange(changes.get(0), RideChange.Type.BULK_INSERT, LocalDate.of(2022, 11, 2), LocalDate.of(2023, 2, 14));
+        assertNull(changes.get(0).getRide());
+    }
+
+    @Test
+    public void wipeAndRepairCoverAllDates() {
+        helper.insertRide(new Ride(null, LocalDate.of(2024, 6, 3), LocalTime.of(9, 0), LocalTime.of(9, 30), 14.0));
+        helper.deleteAllRides();
+        helper.repairDailySummaries();
+
+        assertEquals(RideChange.Type.WIPE, changes.get(1).getType());
+        assertTrue(changes.get(1).coversAllDates());
+        assertEquals(RideChange.Type.SUMMARY_REBUILD, changes.get(2).getType());
+        assertTrue(changes.get(2).coversAllDates());
+    }
+
+    @Test
+    public void missingRideDeletePublishesNothing() {
+        assertFalse(helper.deleteRide(12345));
+        assertTrue(changes.isEmpty());
+    }
+
+    private static void assertChange(RideChange change, RideChange.Type type, LocalDate from, LocalDate to) {
+        assertEquals(type, change.getType());
+        assertEquals(from, change.getFrom());
+        assertEquals(to, change.getTo());
+    }
+}
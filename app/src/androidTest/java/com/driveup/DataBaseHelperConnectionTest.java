@@ -0,0 +1,111 @@
+package com.driveup;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.driveup.ui.ride.Ride;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Vérifie le cycle de vie de la connexion partagée et mesure le coût
+ * ouverture + requête avant/après (résultats dans logcat, tag "DbConnectionBench").
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataBaseHelperConnectionTest {
+
+    private static final String TEST_DB = "driveup-connection-test.db";
+    private static final String BENCH_TAG = "DbConnectionBench";
+    private static final int ITERATIONS = 200;
+
+    private Context context;
+    private DataBaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DataBaseHelper(context, TEST_DB);
+
+        List<Ride> rides = new ArrayList<>();
+        LocalDate start = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < 2_000; i++) {
+            rides.add(new Ride(null, start.plusDays(i / 4), LocalTime.of(8 + (i % 4) * 3, 0),
+                    LocalTime.of(9 + (i % 4) * 3, 30), 12.5 + i % 20));
+        }
+        helper.insertRides(rides);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void connectionIsReusedAcrossOperations() {
+        SQLiteDatabase first = helper.getWritableDatabase();
+        StoredRides.readAll(helper);
+        helper.insertRide(new Ride(null, LocalDate.of(2024, 5, 1), LocalTime.of(10, 0), LocalTime.of(11, 0), 20.0));
+        helper.deleteAllRides();
+
+        SQLiteDatabase after = helper.getWritableDatabase();
+        assertSame(first, after);
+        assertTrue(after.isOpen());
+    }
+
+    @Test
+    public void writeAheadLoggingIsEnabled() {
+        try (Cursor cursor = helper.getReadableDatabase().rawQuery("PRAGMA journal_mode", null)) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals("wal", cursor.getString(0).toLowerCase());
+        }
+    }
+
+    @Test
+    public void measureOpenAndQueryLatency() {
+        // Avant : chaque opération rouvrait la base puis la fermait
+        long reopenStart = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ITERATIONS; i++) {
+            SQLiteDatabase db = helper.getReadableDatabase();
+            try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM ride", null)) {
+                cursor.moveToFirst();
+            }
+            helper.close();
+        }
+        long reopenNanos = SystemClock.elapsedRealtimeNanos() - reopenStart;
+
+        // Après : la connexion reste ouverte pour toute la durée de vie du singleton
+        SQLiteDatabase shared = helper.getReadableDatabase();
+        long sharedStart = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < ITERATIONS; i++) {
+            SQLiteDatabase db = helper.getReadableDatabase();
+            try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM ride", null)) {
+                cursor.moveToFirst();
+            }
+            assertSame(shared, db);
+            assertTrue(db.isOpen());
+        }
+        long sharedNanos = SystemClock.elapsedRealtimeNanos() - sharedStart;
+
+        // Les durées dépendent de l'appareil : journalisées, pas comparées
+        Log.i(BENCH_TAG, String.format("open+query x%d: reopen=%.3f ms/op, shared=%.3f ms/op",
+                ITERATIONS, reopenNanos / 1e6 / ITERATIONS, sharedNanos / 1e6 / ITERATIONS));
+    }
+}
@@ -0,0 +1,120 @@
+package com.driveup;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.driveup.ui.importexport.DailyRideSummary;
+import com.driveup.ui.ride.Ride;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * La table daily_summary, tenue par les déclencheurs, doit rester égale à un recalcul complet.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataBaseHelperDailySummaryTest {
+
+    private static final String TEST_DB = "driveup-daily-summary-test.db";
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+
+    private Context context;
+    private DataBaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DataBaseHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void insertsUpdateTheDaySummary() {
+        helper.insertRide(new Ride(null, DAY, LocalTime.of(14, 0), LocalTime.of(14, 45), 20.0));
+        helper.insertRide(new Ride(null, DAY, LocalTime.of(8, 30), LocalTime.of(9, 0), 12.5));
+        helper.insertRide(new Ride(null, DAY, LocalTime.of(23, 40), LocalTime.of(0, 10), 30.0));
+
+        List<DailyRideSummary> summaries = helper.getDailySummaries();
+
+        assertEquals(1, summaries.size());
+        assertEquals(new DailyRideSummary(DAY, LocalTime.of(8, 30), LocalTime.of(0, 10), 3, 62.5, 45 + 30 + 30),
+                summaries.get(0));
+    }
+
+    @Test
+    public void deletesRecomputeBoundsAndDropEmptyDays() {
+        long early = helper.insertRide(new Ride(null, DAY, LocalTime.of(8, 30), LocalTime.of(9, 0), 12.5));
+        long late = helper.insertRide(new Ride(null, DAY, LocalTime.of(18, 0), LocalTime.of(19, 0), 25.0));
+        long other = helper.insertRide(new Ride(null, DAY.plusDays(1), LocalTime.of(10, 0), LocalTime.of(10, 20), 9.0));
+
+        helper.deleteRide(late);
+        helper.deleteRide(other);
+
+        List<DailyRideSummary> summaries = helper.getDailySummaries();
+        assertEquals(1, summaries.size());
+        assertEquals(new DailyRideSummary(DAY, LocalTime.of(8, 30), LocalTime.of(9, 0), 1, 12.5, 30),
+                summaries.get(0));
+
+        helper.deleteRide(early);
+        assertTrue(helper.getDailySummaries().isEmpty());
+    }
+
+    @Test
+    public void wipeClearsSummariesAndKeepsTheDeleteTrigger() {
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rides.add(new Ride(null, DAY.plusDays(i % 10), LocalTime.of(8 + i % 12, 0), LocalTime.of(9 + i % 12, 0), 10));
+        }
+        helper.insertRides(rides);
+
+        helper.deleteAllRides();
+        assertTrue(helper.getDailySummaries().isEmpty());
+
+        // Suppressions suivantes toujours répercutées sur les résumés
+        long kept = helper.insertRide(new Ride(null, DAY, LocalTime.of(8, 0), LocalTime.of(8, 30), 12.5));
+        long removed = helper.insertRide(new Ride(null, DAY, LocalTime.of(18, 0), LocalTime.of(19, 0), 25.0));
+        helper.deleteRide(removed);
+        assertEquals(Collections.singletonList(
+                        new DailyRideSummary(DAY, LocalTime.of(8, 0), LocalTime.of(8, 30), 1, 12.5, 30)),
+                helper.getDailySummaries());
+        helper.deleteRide(kept);
+        assertTrue(helper.getDailySummaries().isEmpty());
+    }
+
+    @Test
+    public void repairMatchesIncrementalSummaries() {
+        List<Ride> rides = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            rides.add(new Ride(null, DAY.plusDays(i % 40), LocalTime.of(i % 24, (i * 7) % 60),
+                    LocalTime.of((i + 2) % 24, (i * 11) % 60), 5 + i % 13));
+        }
+        helper.insertRides(rides);
+        for (int i = 0; i < rides.size(); i += 4) {
+            helper.deleteRide(rides.get(i).getId());
+        }
+        List<DailyRideSummary> incremental = helper.getDailySummaries();
+        long version = helper.getDataVersion();
+
+        assertEquals(incremental.size(), helper.repairDailySummaries());
+        assertEquals(incremental, helper.getDailySummaries());
+        assertEquals(version + 1, helper.getDataVersion());
+    }
+}
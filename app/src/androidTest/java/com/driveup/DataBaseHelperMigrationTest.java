@@ -0,0 +1,84 @@
+package com.driveup;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.driveup.ui.importexport.DailyRideSummary;
+import com.driveup.ui.ride.Ride;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Migration d'une base v1 (colonnes TEXT/REAL) vers le schéma typé.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataBaseHelperMigrationTest {
+
+    private static final String TEST_DB = "driveup-migration-test.db";
+
+    private Context context;
+    private DataBaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+
+        SQLiteDatabase v1 = SQLiteDatabase.openOrCreateDatabase(context.getDatabasePath(TEST_DB), null);
+        v1.execSQL("CREATE TABLE ride (id INTEGER PRIMARY KEY AUTOINCREMENT, date TEXT NOT NULL, " +
+                "start_hour TEXT NOT NULL, end_hour TEXT NOT NULL, price REAL NOT NULL)");
+        v1.execSQL("INSERT INTO ride (id, date, start_hour, end_hour, price) VALUES " +
+                "(7, '2024-03-15', '08:30', '09:45', 23.9), " +
+                "(12, '1999-12-31', '23:10', '00:20', 41.05)");
+        v1.setVersion(1);
+        v1.close();
+
+        helper = new DataBaseHelper(context, TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void upgradeConvertsTextColumnsInPlace() {
+        List<Ride> rides = StoredRides.readAll(helper);
+
+        assertEquals(2, rides.size());
+        assertEquals(new Ride(7L, LocalDate.of(2024, 3, 15), LocalTime.of(8, 30), LocalTime.of(9, 45), 23.9),
+                rides.get(0));
+        assertEquals(new Ride(12L, LocalDate.of(1999, 12, 31), LocalTime.of(23, 10), LocalTime.of(0, 20), 41.05),
+                rides.get(1));
+    }
+
+    @Test
+    public void upgradeBuildsDailySummaries() {
+        List<DailyRideSummary> summaries = helper.getDailySummaries();
+
+        assertEquals(2, summaries.size());
+        assertEquals(new DailyRideSummary(LocalDate.of(1999, 12, 31), LocalTime.of(23, 10), LocalTime.of(0, 20),
+                1, 41.05, 70), summaries.get(0));
+        assertEquals(LocalDate.of(2024, 3, 15), summaries.get(1).getDate());
+    }
+
+    @Test
+    public void upgradeKeepsAutoincrementSequence() {
+        long id = helper.insertRide(new Ride(null, LocalDate.of(2024, 4, 1), LocalTime.of(10, 0),
+                LocalTime.of(11, 0), 10.0));
+        assertEquals(13L, id);
+    }
+}
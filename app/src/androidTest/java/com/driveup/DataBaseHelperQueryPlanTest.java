@@ -0,0 +1,154 @@
+package com.driveup;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.driveup.ui.ride.Ride;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Échoue si une requête chaude retombe sur un parcours complet de la table
+ * ou sur un tri temporaire (B-tree).
+ */
+@RunWith(AndroidJUnit4.class)
+public class DataBaseHelperQueryPlanTest {
+
+    private static final String TEST_DB = "driveup-query-plan-test.db";
+
+    private Context context;
+    private DataBaseHelper helper;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+        helper = new DataBaseHelper(context, TEST_DB);
+
+        List<Ride> rides = new ArrayList<>();
+        LocalDate start = LocalDate.of(2021, 1, 1);
+        for (int i = 0; i < 500; i++) {
+            rides.add(new Ride(null, start.plusDays(i / 3), LocalTime.of(7 + (i % 3) * 4, 15),
+                    LocalTime.of(8 + (i % 3) * 4, 0), 9.5 + i % 7));
+        }
+        helper.insertRides(rides);
+    }
+
+    @After
+    public void tearDown() {
+        helper.close();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void allRidesUsesCoveringIndexWithoutSort() {
+        assertIndexedPlan(DataBaseHelper.SQL_ALL_RIDES);
+    }
+
+    @Test
+    public void statsTotalsUseCoveringIndexSearch() {
+        assertIndexedPlan(DataBaseHelper.SQL_STATS_TOTALS, "18628", "18700");
+    }
+
+    @Test
+    public void firstPageUsesCoveringIndexWithoutSort() {
+        assertIndexedPlan(DataBaseHelper.SQL_FIRST_PAGE, "50");
+    }
+
+    @Test
+    public void keysetPageUsesIndexSearch() {
+        assertIndexedPlan(DataBaseHelper.SQL_PAGE_BEFORE, "18700", "435", "300", "50");
+    }
+
+    @Test
+    public void reverseKeysetPageUsesIndexSearch() {
+        assertIndexedPlan(DataBaseHelper.SQL_PAGE_AFTER, "18700", "435", "300", "50");
+    }
+
+    @Test
+    public void statsRideRowsUseCoveringIndexWithoutSort() {
+        assertIndexedPlan(DataBaseHelper.SQL_STATS_RIDE_ROWS, "18628", "18700");
+    }
+
+    @Test
+    public void statsSnapshotGroupsMatchRides() {
+        List<Ride> all = StoredRides.readAll(helper);
+        RideStatsSnapshot snapshot = helper.getRideStatsSnapshot();
+
+        long totalCents = 0;
+        int[] countsByMonthWeekday = new int[2 * 12 * 7];
+        for (Ride ride : all) {
+            totalCents += RideEncoding.toCents(ride.getPrice());
+            int month = (ride.getDate().getYear() - 2021) * 12 + ride.getDate().getMonthValue() - 1;
+            countsByMonthWeekday[month * 7 + ride.getDate().getDayOfWeek().getValue() - 1]++;
+        }
+        assertEquals(all.size(), snapshot.getTotalRides());
+        assertEquals(totalCents, snapshot.getTotalCents());
+        assertEquals(all.size(), snapshot.getEpochDays().length);
+
+        int grouped = 0;
+        for (int i = 0; i < snapshot.getGroupMonths().length; i++) {
+            int month = snapshot.getGroupMonths()[i] - 2021 * 12;
+            assertEquals(countsByMonthWeekday[month * 7 + snapshot.getGroupWeekdays()[i]],
+                    snapshot.getGroupRideCounts()[i]);
+            grouped += snapshot.getGroupRideCounts()[i];
+        }
+        assertEquals(all.size(), grouped);
+    }
+
+    @Test
+    public void pageAfterReturnsNeighboursInListOrder() {
+        List<Ride> all = StoredRides.readAll(helper);
+        Ride anchor = all.get(100);
+
+        assertEquals(all.subList(90, 100), helper.getRidesAfter(anchor, 10));
+    }
+
+    @Test
+    public void keysetPagesWalkWholeHistoryWithoutGapsOrDuplicates() {
+        List<Ride> all = StoredRides.readAll(helper);
+        List<Ride> paged = new ArrayList<>();
+        Ride last = null;
+        List<Ride> page;
+        do {
+            page = helper.getRidesBefore(last, 37);
+            paged.addAll(page);
+            if (!page.isEmpty()) {
+                last = page.get(page.size() - 1);
+            }
+        } while (page.size() == 37);
+
+        assertEquals(all, paged);
+    }
+
+    private void assertIndexedPlan(String sql, String... args) {
+        SQLiteDatabase db = helper.getReadableDatabase();
+        List<String> details = new ArrayList<>();
+        try (Cursor cursor = db.rawQuery("EXPLAIN QUERY PLAN " + sql, args)) {
+            int detailIndex = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(detailIndex));
+            }
+        }
+
+        assertFalse("Plan vide pour " + sql, details.isEmpty());
+        for (String detail : details) {
+            assertFalse("Tri temporaire : " + details, detail.contains("TEMP B-TREE"));
+            assertTrue("Parcours sans index couvrant : " + details, detail.contains("COVERING INDEX"));
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.driveup;
+
+import com.driveup.ui.ride.Ride;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Toutes les courses de la base, lues par {@link DataBaseHelper#forEachRide} dans l'ordre de la liste.
+ */
+final class StoredRides {
+
+    private StoredRides() {
+    }
+
+    static List<Ride> readAll(DataBaseHelper helper) {
+        List<Ride> rides = new ArrayList<>();
+        try {
+            helper.forEachRide((id, epochDay, startMinute, endMinute, priceCents) -> rides.add(new Ride(id,
+                    RideEncoding.toLocalDate(epochDay), RideEncoding.toLocalTime(startMinute),
+                    RideEncoding.toLocalTime(endMinute), RideEncoding.fromCents(priceCents))));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return rides;
+    }
+}
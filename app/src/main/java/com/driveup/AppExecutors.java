@@ -0,0 +1,106 @@
+package com.driveup;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pools partagés par l'application :
+ * <ul>
+ *     <li>{@link #diskIO()} : accès à la base et aux fichiers, borné à deux threads
+ *     (une écriture et une lecture en parallèle grâce au WAL) ;</li>
+ *     <li>{@link #computation()} : agrégation des statistiques, borné au nombre de cœurs ;</li>
+ *     <li>{@link #statUpdates()} : mises à jour incrémentales des statistiques, sur un seul thread pour
+ *     qu'elles s'appliquent dans l'ordre des écritures ;</li>
+ *     <li>{@link #importParsing()} : lecture des fichiers importés ; ses tâches attendent quand l'écriture
+ *     ne suit pas, d'où un pool distinct pour ne pas bloquer les deux autres ;</li>
+ *     <li>{@link #mainThread()} : retour sur le thread UI.</li>
+ * </ul>
+ * Les résultats sont publiés via {@code LiveData.postValue} ou {@link #mainThread()}.
+ */
+public final class AppExecutors {
+
+    private static final int DISK_IO_THREADS = 2;
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static AppExecutors instance;
+
+    private final ExecutorService diskIO;
+    private final ExecutorService computation;
+    private final ExecutorService statUpdates;
+    private final ExecutorService importParsing;
+    private final int importParsingThreads;
+    private final Executor mainThread;
+
+    public static synchronized AppExecutors getInstance() {
+        if (instance == null) {
+            instance = new AppExecutors();
+        }
+        return instance;
+    }
+
+    private AppExecutors() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        diskIO = newBoundedPool("driveup-io", DISK_IO_THREADS);
+        computation = newBoundedPool("driveup-compute", Math.max(2, Math.min(4, cores)));
+        statUpdates = newBoundedPool("driveup-stats", 1);
+        importParsingThreads = Math.max(2, Math.min(4, cores));
+        importParsing = newBoundedPool("driveup-parse", importParsingThreads);
+        Handler mainHandler = new Handler(Looper.getMainLooper());
+        mainThread = mainHandler::post;
+    }
+
+    private static ExecutorService newBoundedPool(String name, int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public ExecutorService diskIO() {
+        return diskIO;
+    }
+
+    public ExecutorService computation() {
+        return computation;
+    }
+
+    public ExecutorService statUpdates() {
+        return statUpdates;
+    }
+
+    public ExecutorService importParsing() {
+        return importParsing;
+    }
+
+    public int getImportParsingThreads() {
+        return importParsingThreads;
+    }
+
+    public Executor mainThread() {
+        return mainThread;
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger count = new AtomicInteger(1);
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + "-" + count.getAndIncrement());
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
@@ -3,22 +3,91 @@ package com.driveup;
 import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 
+import androidx.annotation.Nullable;
+
+import com.driveup.ui.importexport.DailyRideSummary;
 import com.driveup.ui.ride.Ride;
 
+import java.io.IOException;
 import java.time.LocalDate;
-import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class DataBaseHelper extends SQLiteOpenHelper {
 
     private static final String DB_NAME = "driveup.db";
-    private static final int DB_VERSION = 1;
+    private static final int DB_VERSION = 5;
+
+    private static final String RIDE_COLUMNS = "id, date, start_hour, end_hour, price_cents";
+    private static final String RIDE_ORDER = " ORDER BY date DESC, start_hour DESC, id DESC";
+
+    // Requêtes chaudes, partagées avec le test de plan d'exécution
+    static final String SQL_ALL_RIDES =
+            "SELECT " + RIDE_COLUMNS + " FROM ride" + RIDE_ORDER;
+    static final String SQL_FIRST_PAGE =
+            SQL_ALL_RIDES + " LIMIT ?";
+    static final String SQL_PAGE_BEFORE =
+            "SELECT " + RIDE_COLUMNS + " FROM ride WHERE (date, start_hour, id) < (?, ?, ?)" + RIDE_ORDER + " LIMIT ?";
+    static final String SQL_PAGE_AFTER =
+            "SELECT " + RIDE_COLUMNS + " FROM ride WHERE (date, start_hour, id) > (?, ?, ?)" +
+                    " ORDER BY date ASC, start_hour ASC, id ASC LIMIT ?";
+    // Durée d'une course en minutes ; une fin antérieure ou égale au début passe minuit
+    private static final String RIDE_MINUTES = "((end_hour - start_hour + 1439) % 1440 + 1)";
+    // Fin de la dernière course (par heure de début) d'un jour, lue par une recherche dans l'index
+    private static final String LAST_END_OF_DAY =
+            "SELECT end_hour FROM ride WHERE date = %s ORDER BY start_hour DESC, id DESC LIMIT 1";
+    static final String SQL_DAILY_SUMMARIES =
+            "SELECT date, first_start, last_end, ride_count, total_cents, driven_minutes FROM daily_summary ORDER BY date";
+    static final String SQL_REBUILD_DAILY_SUMMARIES =
+            "INSERT INTO daily_summary (date, first_start, last_end, ride_count, total_cents, driven_minutes)" +
+                    " SELECT date, MIN(start_hour), (" + String.format(LAST_END_OF_DAY, "r.date") + ")," +
+                    " COUNT(*), SUM(price_cents), SUM" + RIDE_MINUTES + " FROM ride r GROUP BY date";
+    static final String SQL_RIDE_BY_ID =
+            "SELECT " + RIDE_COLUMNS + " FROM ride WHERE id = ?";
+    private static final String SQL_INSERT_RIDE =
+            "INSERT INTO ride (date, start_hour, end_hour, price_cents) VALUES (?, ?, ?, ?)";
+    // Statistiques d'une plage de jours : totaux, groupes mois × jour de la semaine (à partir des résumés
+    // journaliers), puis colonnes brutes dans l'ordre de l'index pour les calculs par course
+    static final String SQL_STATS_TOTALS =
+            "SELECT COUNT(*), COALESCE(SUM(price_cents), 0) FROM ride WHERE date BETWEEN ? AND ?";
+    static final String SQL_STATS_MONTH_WEEKDAY =
+            "SELECT CAST(strftime('%Y', date * 86400, 'unixepoch') AS INTEGER) * 12" +
+                    " + CAST(strftime('%m', date * 86400, 'unixepoch') AS INTEGER) - 1 AS month," +
+                    " ((date + 3) % 7 + 7) % 7 AS weekday, SUM(ride_count), SUM(total_cents)" +
+                    " FROM daily_summary WHERE date BETWEEN ? AND ? GROUP BY month, weekday";
+    static final String SQL_STATS_RIDE_ROWS =
+            "SELECT date, start_hour, end_hour, price_cents FROM ride WHERE date BETWEEN ? AND ? ORDER BY date";
+    private static final String SQL_DATA_VERSION =
+            "SELECT value FROM meta WHERE key = 'data_version'";
     private static DataBaseHelper instance;
 
+    // Copie en mémoire de meta.data_version, lisible sans accès disque depuis le thread UI
+    private final AtomicLong dataVersion = new AtomicLong();
+    private final List<ChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Appelé sur le thread de l'écriture, après la validation de sa transaction et avant qu'une autre
+     * écriture ne commence : les changements arrivent dans l'ordre des versions. Doit rendre la main vite.
+     */
+    public interface ChangeListener {
+        void onDataChanged(RideChange change);
+    }
+
+    /**
+     * Reçoit les colonnes stockées d'une course, sans objet intermédiaire.
+     */
+    public interface RideRowVisitor {
+        void visit(long id, long epochDay, int startMinute, int endMinute, long priceCents) throws IOException;
+    }
+
     public static synchronized DataBaseHelper getInstance(Context context) {
         if (instance == null) {
             instance = new DataBaseHelper(context.getApplicationContext());
@@ -27,105 +96,498 @@ public class DataBaseHelper extends SQLiteOpenHelper {
     }
 
     private DataBaseHelper(Context context) {
-        super(context, DB_NAME, null, DB_VERSION);
+        this(context, DB_NAME);
+    }
+
+    /**
+     * Constructeur ouvert aux tests pour travailler sur une base séparée.
+     * La connexion est ouverte une seule fois puis conservée par l'instance :
+     * aucune méthode ne doit appeler {@code db.close()}.
+     */
+    DataBaseHelper(Context context, String name) {
+        super(context, name, null, DB_VERSION);
+        // WAL : les lectures (statistiques) ne bloquent plus les écritures (ajout d'une course)
+        setWriteAheadLoggingEnabled(true);
+    }
+
+    /**
+     * Connexion partagée, ouverte paresseusement et mise en cache par {@link SQLiteOpenHelper}.
+     * En mode WAL, le pool de connexions sert les lectures en parallèle de l'écriture.
+     */
+    private SQLiteDatabase database() {
+        return getWritableDatabase();
+    }
+
+    /**
+     * Version des données, incrémentée dans la transaction de chaque écriture sur la table ride.
+     * Les écritures sont sérialisées sur cette instance : un appelant qui a besoin de la version
+     * produite par sa propre écriture la lit dans un bloc {@code synchronized (dbHelper)}.
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    /**
+     * Comme {@link #getDataVersion()}, mais ouvre d'abord la base si besoin : tant qu'elle n'est pas ouverte,
+     * la copie en mémoire n'a pas encore été lue dans meta. Accès disque, hors du thread UI.
+     */
+    public long loadDataVersion() {
+        database();
+        return dataVersion.get();
+    }
+
+    public void addChangeListener(ChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void publishChange(RideChange.Type type, @Nullable Ride ride, @Nullable LocalDate from,
+                               @Nullable LocalDate to) {
+        RideChange change = new RideChange(type, ride, from, to, dataVersion.get());
+        for (ChangeListener listener : changeListeners) {
+            listener.onDataChanged(change);
+        }
     }
 
+    @Override
+    public void onOpen(SQLiteDatabase db) {
+        super.onOpen(db);
+        dataVersion.set(DatabaseUtils.longForQuery(db, SQL_DATA_VERSION, null));
+    }
+
+    private void bumpDataVersion(SQLiteDatabase db) {
+        db.execSQL("UPDATE meta SET value = value + 1 WHERE key = 'data_version'");
+    }
+
+    /**
+     * Schéma v2 : date en jour epoch, heures en minute de la journée, prix en centimes.
+     * Tris, filtres par période et sommes se font directement sur des entiers.
+     */
     @Override
     public void onCreate(SQLiteDatabase db) {
-        db.execSQL("CREATE TABLE IF NOT EXISTS ride (\n" +
-                "    id INTEGER PRIMARY KEY AUTOINCREMENT,\n" +
-                "    date TEXT NOT NULL,\n" +
-                "    start_hour TEXT NOT NULL,\n" +
-                "    end_hour TEXT NOT NULL,\n" +
-                "    price REAL NOT NULL\n" +
-                ");\n");
+        createRideTable(db, "ride");
+        createRideIndexes(db);
+        createMetaTable(db);
+        createDailySummaryTable(db);
     }
 
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            migrateToTypedSchema(db);
+        }
+        if (oldVersion < 3) {
+            createRideIndexes(db);
+        }
+        if (oldVersion < 4) {
+            createMetaTable(db);
+        }
+        if (oldVersion < 5) {
+            createDailySummaryTable(db);
+            rebuildDailySummaries(db);
+        }
+    }
 
+    private void createRideTable(SQLiteDatabase db, String tableName) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + tableName + " (\n" +
+                "    id INTEGER PRIMARY KEY AUTOINCREMENT,\n" +
+                "    date INTEGER NOT NULL,\n" +
+                "    start_hour INTEGER NOT NULL,\n" +
+                "    end_hour INTEGER NOT NULL,\n" +
+                "    price_cents INTEGER NOT NULL\n" +
+                ");\n");
     }
 
-    // CRUD des courses
-    public long insertRide(Ride ride) {
-        SQLiteDatabase db = this.getWritableDatabase();
+    /**
+     * Index couvrant l'ordre de la liste (date, heure de début, id) et les filtres par période :
+     * il contient toutes les colonnes projetées, la table n'est donc jamais relue
+     * et aucun tri temporaire n'est nécessaire.
+     */
+    private void createRideIndexes(SQLiteDatabase db) {
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_ride_date_start " +
+                "ON ride (date, start_hour, id, end_hour, price_cents)");
+    }
+
+    /**
+     * Table clé/valeur ; contient la version des données, qui doit être lue dans la même
+     * transaction que les courses pour qu'un calcul sache exactement quelles écritures il inclut.
+     */
+    private void createMetaTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS meta (key TEXT PRIMARY KEY, value INTEGER NOT NULL)");
+        db.execSQL("INSERT OR IGNORE INTO meta (key, value) VALUES ('data_version', 0)");
+    }
+
+    /**
+     * Résumé par jour (première heure de début, fin de la dernière course, nombre, total, minutes de conduite),
+     * tenu à jour par des déclencheurs dans la transaction même de chaque ajout ou suppression de course.
+     * Les minimums et la dernière fin ne se décrémentent pas : ils sont relus dans l'index (date, start_hour, id)
+     * pour le seul jour touché. Les courses ne sont jamais modifiées en place, d'où l'absence de déclencheur UPDATE.
+     */
+    private void createDailySummaryTable(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS daily_summary (\n" +
+                "    date INTEGER PRIMARY KEY,\n" +
+                "    first_start INTEGER NOT NULL,\n" +
+                "    last_end INTEGER NOT NULL,\n" +
+                "    ride_count INTEGER NOT NULL,\n" +
+                "    total_cents INTEGER NOT NULL,\n" +
+                "    driven_minutes INTEGER NOT NULL\n" +
+                ")");
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_ride_insert_daily AFTER INSERT ON ride BEGIN\n" +
+                "    INSERT OR IGNORE INTO daily_summary (date, first_start, last_end, ride_count, total_cents, driven_minutes)\n" +
+                "        VALUES (NEW.date, NEW.start_hour, NEW.end_hour, 0, 0, 0);\n" +
+                "    UPDATE daily_summary SET\n" +
+                "        ride_count = ride_count + 1,\n" +
+                "        total_cents = total_cents + NEW.price_cents,\n" +
+                "        driven_minutes = driven_minutes + (NEW.end_hour - NEW.start_hour + 1439) % 1440 + 1,\n" +
+                "        first_start = MIN(first_start, NEW.start_hour),\n" +
+                "        last_end = (" + String.format(LAST_END_OF_DAY, "NEW.date") + ")\n" +
+                "    WHERE date = NEW.date;\n" +
+                "END");
+        createDailySummaryDeleteTrigger(db);
+    }
+
+    private static void createDailySummaryDeleteTrigger(SQLiteDatabase db) {
+        db.execSQL("CREATE TRIGGER IF NOT EXISTS trg_ride_delete_daily AFTER DELETE ON ride BEGIN\n" +
+                "    UPDATE daily_summary SET\n" +
+                "        ride_count = ride_count - 1,\n" +
+                "        total_cents = total_cents - OLD.price_cents,\n" +
+                "        driven_minutes = driven_minutes - ((OLD.end_hour - OLD.start_hour + 1439) % 1440 + 1),\n" +
+                "        first_start = COALESCE((SELECT MIN(start_hour) FROM ride WHERE date = OLD.date), 0),\n" +
+                "        last_end = COALESCE((" + String.format(LAST_END_OF_DAY, "OLD.date") + "), 0)\n" +
+                "    WHERE date = OLD.date;\n" +
+                "    DELETE FROM daily_summary WHERE date = OLD.date AND ride_count = 0;\n" +
+                "END");
+    }
+
+    private static void rebuildDailySummaries(SQLiteDatabase db) {
+        db.execSQL("DELETE FROM daily_summary");
+        db.execSQL(SQL_REBUILD_DAILY_SUMMARIES);
+    }
+
+    /**
+     * v1 -> v2 : convertit en place les colonnes TEXT/REAL ("yyyy-MM-dd", "HH:mm", euros)
+     * vers les colonnes entières, en conservant les identifiants.
+     * onUpgrade est déjà exécuté dans une transaction par {@link SQLiteOpenHelper}.
+     */
+    private void migrateToTypedSchema(SQLiteDatabase db) {
+        createRideTable(db, "ride_v2");
+        db.execSQL("INSERT INTO ride_v2 (id, date, start_hour, end_hour, price_cents)\n" +
+                "SELECT id,\n" +
+                "    CAST(julianday(date) - 2440587.5 AS INTEGER),\n" +
+                "    CAST(substr(start_hour, 1, 2) AS INTEGER) * 60 + CAST(substr(start_hour, 4, 2) AS INTEGER),\n" +
+                "    CAST(substr(end_hour, 1, 2) AS INTEGER) * 60 + CAST(substr(end_hour, 4, 2) AS INTEGER),\n" +
+                "    CAST(ROUND(price * 100) AS INTEGER)\n" +
+                "FROM ride");
+        db.execSQL("DROP TABLE ride");
+        db.execSQL("ALTER TABLE ride_v2 RENAME TO ride");
+    }
+
+    private static ContentValues toContentValues(Ride ride) {
         ContentValues values = new ContentValues();
-        values.put("date", ride.getDate().toString());
-        values.put("start_hour", ride.getStartHour().toString());
-        values.put("end_hour", ride.getEndHour().toString());
-        values.put("price", ride.getPrice());
-        
-        long id = db.insert("ride", null, values);
-        db.close();
+        values.put("date", RideEncoding.toEpochDay(ride.getDate()));
+        values.put("start_hour", RideEncoding.toMinuteOfDay(ride.getStartHour()));
+        values.put("end_hour", RideEncoding.toMinuteOfDay(ride.getEndHour()));
+        values.put("price_cents", RideEncoding.toCents(ride.getPrice()));
+        return values;
+    }
+
+    // CRUD des courses
+
+    /**
+     * @return l'id de la nouvelle course, -1 si l'insertion a échoué : la version des données ne change pas
+     * et aucun changement n'est publié
+     */
+    public synchronized long insertRide(Ride ride) {
+        SQLiteDatabase db = database();
+        long id;
+        db.beginTransaction();
+        try {
+            id = db.insert("ride", null, toContentValues(ride));
+            if (id != -1) {
+                bumpDataVersion(db);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            dataVersion.set(DatabaseUtils.longForQuery(db, SQL_DATA_VERSION, null));
+        }
+        if (id == -1) {
+            android.util.Log.e("DataBaseHelper", "Could not insert ride " + ride);
+            return id;
+        }
+        ride.setId(id);
+        publishChange(RideChange.Type.INSERT, ride, ride.getDate(), ride.getDate());
         return id;
     }
 
-    public List<Ride> getAllRides() {
-        List<Ride> rides = new ArrayList<>();
-        SQLiteDatabase db = this.getReadableDatabase();
-        Cursor cursor = db.rawQuery("SELECT * FROM ride ORDER BY date DESC, start_hour DESC", null);
-        
-        android.util.Log.d("DataBaseHelper", "Found " + cursor.getCount() + " rides in database");
-        
-        if (cursor.moveToFirst()) {
-            do {
-                Ride ride = new Ride();
-                long id = cursor.getLong(cursor.getColumnIndexOrThrow("id"));
-                ride.setId(id);
-                ride.setDate(LocalDate.parse(cursor.getString(cursor.getColumnIndexOrThrow("date"))));
-                ride.setStartHour(LocalTime.parse(cursor.getString(cursor.getColumnIndexOrThrow("start_hour"))));
-                ride.setEndHour(LocalTime.parse(cursor.getString(cursor.getColumnIndexOrThrow("end_hour"))));
-                ride.setPrice(cursor.getDouble(cursor.getColumnIndexOrThrow("price")));
-                rides.add(ride);
-                android.util.Log.d("DataBaseHelper", "Loaded ride ID: " + id + ", Date: " + ride.getDate() + ", Price: " + ride.getPrice());
-            } while (cursor.moveToNext());
-        }
-        cursor.close();
-        db.close();
-        android.util.Log.d("DataBaseHelper", "Returning " + rides.size() + " rides");
+    /**
+     * Parcourt toutes les courses, des plus récentes aux plus anciennes, directement depuis le curseur : la
+     * mémoire utilisée ne dépend pas du nombre de courses. Le parcours se fait dans une transaction en
+     * lecture seule pour que les fenêtres successives du curseur voient toutes la même version.
+     *
+     * @return le nombre de courses parcourues
+     */
+    public int forEachRide(RideRowVisitor visitor) throws IOException {
+        SQLiteDatabase db = database();
+        db.beginTransactionReadOnly();
+        try (Cursor cursor = db.rawQuery(SQL_ALL_RIDES, null)) {
+            int count = 0;
+            while (cursor.moveToNext()) {
+                visitor.visit(cursor.getLong(0), cursor.getLong(1), cursor.getInt(2), cursor.getInt(3),
+                        cursor.getLong(4));
+                count++;
+            }
+            return count;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Résumés journaliers, du plus ancien au plus récent, lus directement dans la table daily_summary.
+     */
+    public List<DailyRideSummary> getDailySummaries() {
+        List<DailyRideSummary> summaries = new ArrayList<>();
+        try (Cursor cursor = database().rawQuery(SQL_DAILY_SUMMARIES, null)) {
+            while (cursor.moveToNext()) {
+                summaries.add(new DailyRideSummary(
+                        RideEncoding.toLocalDate(cursor.getLong(0)),
+                        RideEncoding.toLocalTime(cursor.getInt(1)),
+                        RideEncoding.toLocalTime(cursor.getInt(2)),
+                        cursor.getInt(3),
+                        RideEncoding.fromCents(cursor.getLong(4)),
+                        cursor.getLong(5)));
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Recalcule entièrement la table daily_summary depuis les courses, au cas où elle aurait divergé.
+     * La version des données est incrémentée pour que les statistiques qui en dépendent soient recalculées.
+     *
+     * @return le nombre de jours résumés
+     */
+    public synchronized int repairDailySummaries() {
+        SQLiteDatabase db = database();
+        int days;
+        db.beginTransaction();
+        try {
+            rebuildDailySummaries(db);
+            bumpDataVersion(db);
+            days = (int) DatabaseUtils.queryNumEntries(db, "daily_summary");
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            dataVersion.set(DatabaseUtils.longForQuery(db, SQL_DATA_VERSION, null));
+        }
+        publishChange(RideChange.Type.SUMMARY_REBUILD, null, null, null);
+        return days;
+    }
+
+    /**
+     * Données des statistiques et version correspondante, lues dans une même transaction de lecture :
+     * en WAL, l'instantané est cohérent sans bloquer les écritures concurrentes. Les agrégats par mois
+     * et jour de la semaine sont calculés par SQLite ; le reste est lu en colonnes d'entiers.
+     */
+    public RideStatsSnapshot getRideStatsSnapshot() {
+        return getRideStatsSnapshot(Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Même instantané restreint aux courses datées de {@code fromDay} à {@code toDay} inclus (jours epoch).
+     */
+    public RideStatsSnapshot getRideStatsSnapshot(long fromDay, long toDay) {
+        String[] range = {String.valueOf(fromDay), String.valueOf(toDay)};
+        SQLiteDatabase db = database();
+        db.beginTransactionReadOnly();
+        try {
+            long version = DatabaseUtils.longForQuery(db, SQL_DATA_VERSION, null);
+
+            int totalRides;
+            long totalCents;
+            try (Cursor cursor = db.rawQuery(SQL_STATS_TOTALS, range)) {
+                cursor.moveToFirst();
+                totalRides = cursor.getInt(0);
+                totalCents = cursor.getLong(1);
+            }
+
+            int[] groupMonths;
+            int[] groupWeekdays;
+            int[] groupRideCounts;
+            long[] groupCents;
+            try (Cursor cursor = db.rawQuery(SQL_STATS_MONTH_WEEKDAY, range)) {
+                int count = cursor.getCount();
+                groupMonths = new int[count];
+                groupWeekdays = new int[count];
+                groupRideCounts = new int[count];
+                groupCents = new long[count];
+                for (int i = 0; cursor.moveToNext(); i++) {
+                    groupMonths[i] = cursor.getInt(0);
+                    groupWeekdays[i] = cursor.getInt(1);
+                    groupRideCounts[i] = cursor.getInt(2);
+                    groupCents[i] = cursor.getLong(3);
+                }
+            }
+
+            long[] epochDays = new long[totalRides];
+            int[] startMinutes = new int[totalRides];
+            int[] endMinutes = new int[totalRides];
+            long[] priceCents = new long[totalRides];
+            try (Cursor cursor = db.rawQuery(SQL_STATS_RIDE_ROWS, range)) {
+                for (int i = 0; i < totalRides && cursor.moveToNext(); i++) {
+                    epochDays[i] = cursor.getLong(0);
+                    startMinutes[i] = cursor.getInt(1);
+                    endMinutes[i] = cursor.getInt(2);
+                    priceCents[i] = cursor.getLong(3);
+                }
+            }
+
+            db.setTransactionSuccessful();
+            return new RideStatsSnapshot(version, totalRides, totalCents,
+                    groupMonths, groupWeekdays, groupRideCounts, groupCents,
+                    epochDays, startMinutes, endMinutes, priceCents);
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Pagination par clé : renvoie au plus {@code limit} courses strictement plus anciennes que
+     * {@code after} dans l'ordre de la liste (date, heure de début, id décroissants).
+     * Avec {@code after == null}, renvoie la première page. Le coût ne dépend que de {@code limit}
+     * grâce à une recherche dans l'index, contrairement à un OFFSET qui relit toutes les lignes sautées.
+     */
+    public List<Ride> getRidesBefore(@Nullable Ride after, int limit) {
+        if (after == null) {
+            return queryPage(SQL_FIRST_PAGE, new String[]{String.valueOf(limit)}, limit);
+        }
+        return queryPage(SQL_PAGE_BEFORE, keysetArgs(after, limit), limit);
+    }
+
+    /**
+     * Symétrique de {@link #getRidesBefore} : au plus {@code limit} courses strictement plus récentes
+     * que {@code before}, les plus proches de lui, renvoyées dans l'ordre de la liste (plus récentes en premier).
+     */
+    public List<Ride> getRidesAfter(Ride before, int limit) {
+        List<Ride> rides = queryPage(SQL_PAGE_AFTER, keysetArgs(before, limit), limit);
+        Collections.reverse(rides);
         return rides;
     }
 
-    public void deleteAllRides() {
-        SQLiteDatabase db = this.getWritableDatabase();
-        db.delete("ride", null, null);
-        db.close();
+    private static String[] keysetArgs(Ride ride, int limit) {
+        return new String[]{
+                String.valueOf(RideEncoding.toEpochDay(ride.getDate())),
+                String.valueOf(RideEncoding.toMinuteOfDay(ride.getStartHour())),
+                String.valueOf(ride.getId()),
+                String.valueOf(limit)};
     }
 
-    public boolean deleteRide(long rideId) {
-        android.util.Log.d("DataBaseHelper", "Attempting to delete ride with ID: " + rideId);
-        SQLiteDatabase db = this.getWritableDatabase();
-        
-        // First, let's check if the ride exists
-        Cursor cursor = db.query("ride", new String[]{"id"}, "id = ?", new String[]{String.valueOf(rideId)}, null, null, null);
-        boolean exists = cursor.getCount() > 0;
-        android.util.Log.d("DataBaseHelper", "Ride with ID " + rideId + " exists: " + exists);
-        cursor.close();
-        
-        int deletedRows = db.delete("ride", "id = ?", new String[]{String.valueOf(rideId)});
-        db.close();
-        android.util.Log.d("DataBaseHelper", "Deleted " + deletedRows + " rows for ride ID: " + rideId);
-        return deletedRows > 0;
+    private List<Ride> queryPage(String sql, String[] args, int limit) {
+        List<Ride> rides = new ArrayList<>(limit);
+        try (Cursor cursor = database().rawQuery(sql, args)) {
+            while (cursor.moveToNext()) {
+                rides.add(readRide(cursor));
+            }
+        }
+        return rides;
+    }
+
+    /**
+     * Lit une ligne projetée dans l'ordre (id, date, start_hour, end_hour, price_cents).
+     * Aucune analyse de texte : seulement des conversions d'entiers.
+     */
+    private static Ride readRide(Cursor cursor) {
+        return new Ride(
+                cursor.getLong(0),
+                RideEncoding.toLocalDate(cursor.getLong(1)),
+                RideEncoding.toLocalTime(cursor.getInt(2)),
+                RideEncoding.toLocalTime(cursor.getInt(3)),
+                RideEncoding.fromCents(cursor.getLong(4)));
     }
 
-    public void insertRides(List<Ride> rides) {
-        SQLiteDatabase db = this.getWritableDatabase();
+    public synchronized void deleteAllRides() {
+        SQLiteDatabase db = database();
+        db.beginTransaction();
         try {
-            db.beginTransaction();
+            // Sans déclencheur de suppression, SQLite vide la table d'un coup au lieu de mettre à jour
+            // le résumé du jour course par course ; déclencheur et résumés sont rétablis dans la même transaction
+            db.execSQL("DROP TRIGGER IF EXISTS trg_ride_delete_daily");
+            db.execSQL("DELETE FROM daily_summary");
+            db.delete("ride", null, null);
+            createDailySummaryDeleteTrigger(db);
+            bumpDataVersion(db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            dataVersion.set(DatabaseUtils.longForQuery(db, SQL_DATA_VERSION, null));
+        }
+        publishChange(RideChange.Type.WIPE, null, null, null);
+    }
+
+    /**
+     * La course est relue avant sa suppression pour que le changement publié la décrive entièrement.
+     */
+    public synchronized boolean deleteRide(long rideId) {
+        SQLiteDatabase db = database();
+        String[] idArg = {String.valueOf(rideId)};
+        Ride ride;
+        int deletedRows;
+        db.beginTransaction();
+        try {
+            try (Cursor cursor = db.rawQuery(SQL_RIDE_BY_ID, idArg)) {
+                ride = cursor.moveToFirst() ? readRide(cursor) : null;
+            }
+            deletedRows = ride == null ? 0 : db.delete("ride", "id = ?", idArg);
+            if (deletedRows > 0) {
+                bumpDataVersion(db);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            dataVersion.set(DatabaseUtils.longForQuery(db, SQL_DATA_VERSION, null));
+        }
+        if (deletedRows == 0) {
+            return false;
+        }
+        publishChange(RideChange.Type.DELETE, ride, ride.getDate(), ride.getDate());
+        return true;
+    }
+
+    /**
+     * Enregistre un lot de courses dans une seule transaction, en liant chaque course à une même requête
+     * compilée (ni ContentValues ni SQL reconstruit par ligne). La taille des lots est celle choisie par
+     * l'appelant ; l'import la règle avec son découpage.
+     */
+    public synchronized void insertRides(List<Ride> rides) {
+        if (rides.isEmpty()) {
+            return;
+        }
+        SQLiteDatabase db = database();
+        long fromDay = Long.MAX_VALUE;
+        long toDay = Long.MIN_VALUE;
+        db.beginTransaction();
+        try (SQLiteStatement insert = db.compileStatement(SQL_INSERT_RIDE)) {
             for (Ride ride : rides) {
-                ContentValues values = new ContentValues();
-                values.put("date", ride.getDate().toString());
-                values.put("start_hour", ride.getStartHour().toString());
-                values.put("end_hour", ride.getEndHour().toString());
-                values.put("price", ride.getPrice());
-                long id = db.insert("ride", null, values);
-                ride.setId(id); // Set the ID for the imported ride
-                android.util.Log.d("DataBaseHelper", "Inserted ride with ID: " + id + ", Date: " + ride.getDate() + ", Price: " + ride.getPrice());
+                long day = RideEncoding.toEpochDay(ride.getDate());
+                fromDay = Math.min(fromDay, day);
+                toDay = Math.max(toDay, day);
+                insert.bindLong(1, day);
+                insert.bindLong(2, RideEncoding.toMinuteOfDay(ride.getStartHour()));
+                insert.bindLong(3, RideEncoding.toMinuteOfDay(ride.getEndHour()));
+                insert.bindLong(4, RideEncoding.toCents(ride.getPrice()));
+                ride.setId(insert.executeInsert());
             }
+            bumpDataVersion(db);
             db.setTransactionSuccessful();
         } finally {
             db.endTransaction();
-            db.close();
+            dataVersion.set(DatabaseUtils.longForQuery(db, SQL_DATA_VERSION, null));
         }
+        publishChange(RideChange.Type.BULK_INSERT, null,
+                RideEncoding.toLocalDate(fromDay), RideEncoding.toLocalDate(toDay));
     }
 }
@@ -0,0 +1,33 @@
+package com.driveup;
+
+import android.app.Application;
+import android.os.StrictMode;
+
+public class DriveUpApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.DEBUG) {
+            enableStrictMode();
+        }
+    }
+
+    /**
+     * En debug, toute lecture ou écriture disque sur le thread UI est signalée dans logcat
+     * (tag StrictMode), ainsi que les curseurs et connexions SQLite non fermés.
+     */
+    private void enableStrictMode() {
+        StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                .detectDiskReads()
+                .detectDiskWrites()
+                .detectNetwork()
+                .penaltyLog()
+                .build());
+        StrictMode.setVmPolicy(new StrictMode.VmPolicy.Builder()
+                .detectLeakedSqlLiteObjects()
+                .detectLeakedClosableObjects()
+                .penaltyLog()
+                .build());
+    }
+}
@@ -0,0 +1,30 @@
+package com.driveup;
+
+import android.os.Handler;
+import android.os.Looper;
+
+/**
+ * Regroupe une rafale de demandes de rafraîchissement en un seul déclenchement :
+ * chaque demande repousse l'exécution de {@code delayMillis}, seule la dernière s'exécute.
+ * À utiliser depuis le thread UI.
+ */
+public class RefreshCoalescer {
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable action;
+    private final long delayMillis;
+
+    public RefreshCoalescer(Runnable action, long delayMillis) {
+        this.action = action;
+        this.delayMillis = delayMillis;
+    }
+
+    public void request() {
+        handler.removeCallbacks(action);
+        handler.postDelayed(action, delayMillis);
+    }
+
+    public void cancel() {
+        handler.removeCallbacks(action);
+    }
+}
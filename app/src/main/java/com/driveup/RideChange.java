@@ -0,0 +1,40 @@
+package com.driveup;
+
+import androidx.annotation.Nullable;
+
+import com.driveup.ui.ride.Ride;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Écriture enregistrée, publiée par {@link DataBaseHelper} une fois sa transaction validée.
+ * La plage de dates borne les courses touchées ; nulle, elle couvre toute la table.
+ */
+@Data
+@AllArgsConstructor
+public class RideChange {
+
+    public enum Type {
+        INSERT,         // Une course ajoutée : ride
+        DELETE,         // Une course supprimée : ride
+        BULK_INSERT,    // Import : courses datées de from à to
+        WIPE,           // Toutes les courses supprimées
+        SUMMARY_REBUILD // Résumés journaliers recalculés, courses inchangées
+    }
+
+    private Type type;
+    @Nullable
+    private Ride ride;
+    @Nullable
+    private LocalDate from;
+    @Nullable
+    private LocalDate to;
+    private long dataVersion; // Version produite par l'écriture
+
+    public boolean coversAllDates() {
+        return from == null;
+    }
+}
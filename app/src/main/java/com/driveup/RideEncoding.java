@@ -0,0 +1,85 @@
+package com.driveup;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Conversions entre le modèle {@code Ride} et le stockage compact de la table ride :
+ * jour epoch (INTEGER), minute de la journée (INTEGER) et prix en centimes (INTEGER).
+ */
+public final class RideEncoding {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+
+    private RideEncoding() {
+    }
+
+    public static long toEpochDay(LocalDate date) {
+        return date.toEpochDay();
+    }
+
+    public static LocalDate toLocalDate(long epochDay) {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+
+    /**
+     * Jour epoch d'une date déjà validée, calculé sans créer de {@link LocalDate}
+     * (algorithme "days from civil", réciproque de {@link #toAbsoluteMonth}).
+     */
+    public static long toEpochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * ((month + 9) % 12) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    /**
+     * Mois absolu (année * 12 + mois - 1) d'un jour epoch, calculé sans créer de {@link LocalDate}
+     * (algorithme "days from civil" inversé, calendrier grégorien proleptique comme SQLite).
+     */
+    public static int toAbsoluteMonth(long epochDay) {
+        long z = epochDay + 719468;
+        long era = Math.floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        return (int) (year * 12 + month - 1);
+    }
+
+    /**
+     * Jour du mois (1 à 31) d'un jour epoch, sans créer de {@link LocalDate}.
+     */
+    public static int toDayOfMonth(long epochDay) {
+        int absoluteMonth = toAbsoluteMonth(epochDay);
+        long firstOfMonth = toEpochDay(Math.floorDiv(absoluteMonth, 12), Math.floorMod(absoluteMonth, 12) + 1, 1);
+        return (int) (epochDay - firstOfMonth) + 1;
+    }
+
+    /**
+     * Jour de la semaine d'un jour epoch, 0 = lundi (le 1er janvier 1970 était un jeudi).
+     */
+    public static int toWeekdayIndex(long epochDay) {
+        return (int) Math.floorMod(epochDay + 3, 7L);
+    }
+
+    public static int toMinuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    public static LocalTime toLocalTime(int minuteOfDay) {
+        return LocalTime.of(minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    public static long toCents(double price) {
+        return Math.round(price * 100);
+    }
+
+    public static double fromCents(long cents) {
+        return cents / 100.0;
+    }
+}
@@ -0,0 +1,178 @@
+package com.driveup;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+
+import com.driveup.ui.importexport.DailyRideSummary;
+import com.driveup.ui.ride.Ride;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Accès unique aux courses pour les ViewModels et l'import/export.
+ * <p>
+ * Les changements publiés par {@link DataBaseHelper} vident les vues en cache puis sont relayés aux abonnés
+ * sur le thread UI, dans l'ordre des versions. Un abonné applique l'ajout ou la suppression d'une course à
+ * son propre état et, pour un import, ne relit que la plage de dates touchée.
+ * <p>
+ * Les lectures coûteuses (première page de la liste, instantané des statistiques) sont gardées avec la
+ * version des données qu'elles reflètent et resservies tant qu'aucune écriture n'a eu lieu.
+ * Les méthodes de lecture et d'écriture accèdent à la base : à appeler hors du thread UI.
+ */
+public class RideRepository {
+
+    public interface Listener {
+        void onRidesChanged(RideChange change);
+    }
+
+    private static RideRepository instance;
+
+    private final DataBaseHelper dbHelper;
+    private final Executor mainThread;
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Vues en cache, valides tant que leur version est celle de la base
+    private volatile RideStatsSnapshot statsSnapshot;
+    private volatile FirstPage firstPage;
+
+    private static final class FirstPage {
+        final long version;
+        final int limit;
+        final List<Ride> rides;
+
+        FirstPage(long version, int limit, List<Ride> rides) {
+            this.version = version;
+            this.limit = limit;
+            this.rides = rides;
+        }
+    }
+
+    public static synchronized RideRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new RideRepository(DataBaseHelper.getInstance(context),
+                    AppExecutors.getInstance().mainThread());
+        }
+        return instance;
+    }
+
+    private RideRepository(DataBaseHelper dbHelper, Executor mainThread) {
+        this.dbHelper = dbHelper;
+        this.mainThread = mainThread;
+        dbHelper.addChangeListener(this::onDataChanged);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public long getDataVersion() {
+        return dbHelper.getDataVersion();
+    }
+
+    /**
+     * Version des données lue dans la base, ouverte si besoin ; à appeler hors du thread UI.
+     */
+    public long loadDataVersion() {
+        return dbHelper.loadDataVersion();
+    }
+
+    // Lectures
+
+    /**
+     * Page de la liste plus ancienne que {@code after} ; la première page ({@code after == null})
+     * est servie depuis le cache si la base n'a pas changé. La liste renvoyée appartient à l'appelant.
+     */
+    public List<Ride> getRidesBefore(@Nullable Ride after, int limit) {
+        if (after != null) {
+            return dbHelper.getRidesBefore(after, limit);
+        }
+        // Version lue avant la requête : au pire le cache est plus récent que sa version et sera relu
+        long version = dbHelper.getDataVersion();
+        FirstPage cached = firstPage;
+        if (cached != null && cached.version == version && cached.limit == limit) {
+            return new ArrayList<>(cached.rides);
+        }
+        List<Ride> page = dbHelper.getRidesBefore(null, limit);
+        firstPage = new FirstPage(version, limit, new ArrayList<>(page));
+        return page;
+    }
+
+    public List<Ride> getRidesAfter(Ride before, int limit) {
+        return dbHelper.getRidesAfter(before, limit);
+    }
+
+    /**
+     * Instantané des statistiques, relu seulement si la version des données a changé depuis le précédent.
+     */
+    public RideStatsSnapshot getStatsSnapshot() {
+        RideStatsSnapshot cached = statsSnapshot;
+        if (cached != null && cached.getVersion() == dbHelper.getDataVersion()) {
+            return cached;
+        }
+        RideStatsSnapshot snapshot = dbHelper.getRideStatsSnapshot();
+        statsSnapshot = snapshot;
+        return snapshot;
+    }
+
+    /**
+     * Instantané des statistiques des seules courses datées de {@code from} à {@code to} inclus, jamais mis
+     * en cache : il sert à recalculer les mois touchés par un import.
+     */
+    public RideStatsSnapshot getStatsSnapshot(LocalDate from, LocalDate to) {
+        return dbHelper.getRideStatsSnapshot(RideEncoding.toEpochDay(from), RideEncoding.toEpochDay(to));
+    }
+
+    /**
+     * Parcours de toutes les courses pour l'export, sans liste intermédiaire ni cache.
+     */
+    public int forEachRide(DataBaseHelper.RideRowVisitor visitor) throws IOException {
+        return dbHelper.forEachRide(visitor);
+    }
+
+    public List<DailyRideSummary> getDailySummaries() {
+        return dbHelper.getDailySummaries();
+    }
+
+    // Écritures : le changement correspondant arrive aux abonnés par onDataChanged
+
+    public void addRide(Ride ride) {
+        dbHelper.insertRide(ride);
+    }
+
+    /**
+     * @return false si la course n'existait plus ; aucun abonné n'est alors notifié
+     */
+    public boolean deleteRide(Ride ride) {
+        return dbHelper.deleteRide(ride.getId());
+    }
+
+    public void insertRides(List<Ride> rides) {
+        dbHelper.insertRides(rides);
+    }
+
+    /**
+     * @return le nombre de jours résumés
+     */
+    public int repairDailySummaries() {
+        return dbHelper.repairDailySummaries();
+    }
+
+    private void onDataChanged(RideChange change) {
+        statsSnapshot = null;
+        firstPage = null;
+        mainThread.execute(() -> {
+            for (Listener listener : listeners) {
+                listener.onRidesChanged(change);
+            }
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package com.driveup;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Données des statistiques lues dans une même transaction, avec la version correspondante :
+ * totaux et groupes mois × jour de la semaine agrégés par SQLite, puis une colonne primitive par
+ * champ pour les calculs qui ont besoin de chaque course (plages horaires, carte de chaleur...).
+ * Aucun objet {@code Ride} n'est construit.
+ */
+@Data
+@AllArgsConstructor
+public class RideStatsSnapshot {
+    private long version;
+    private int totalRides;
+    private long totalCents;
+
+    // Groupes mois × jour : mois absolu (année * 12 + mois - 1), jour 0 = lundi
+    private int[] groupMonths;
+    private int[] groupWeekdays;
+    private int[] groupRideCounts;
+    private long[] groupCents;
+
+    // Une entrée par course, triées par date
+    private long[] epochDays;
+    private int[] startMinutes;
+    private int[] endMinutes;
+    private long[] priceCents;
+}
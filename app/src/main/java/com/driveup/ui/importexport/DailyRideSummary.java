@@ -16,4 +16,5 @@ public class DailyRideSummary {
     private LocalTime lastRideEnd;
     private int rideCount;
     private double totalPrice;
+    private long drivenMinutes;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.driveup.ui.importexport;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileImportResult {
+    private String fileName;
+    private int importedCount;
+    private int skippedCount; // Lignes invalides ignorées
+    private String error; // null si le fichier a été lu jusqu'au bout
+
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -1,11 +1,11 @@
 package com.driveup.ui.importexport;
 
 import android.app.Activity;
+import android.content.ClipData;
+import android.content.Context;
 import android.content.Intent;
-import android.database.Cursor;
 import android.net.Uri;
 import android.os.Bundle;
-import android.provider.OpenableColumns;
 import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -16,18 +16,32 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 
+import com.driveup.AppExecutors;
 import com.driveup.databinding.FragmentImportExportBinding;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Les imports et exports s'exécutent sur {@link AppExecutors#diskIO()} ;
+ * seul l'affichage du résultat revient sur le thread UI.
+ */
 public class ImportExportFragment extends Fragment {
 
     private FragmentImportExportBinding binding;
     private ImportExportService importExportService;
     private ActivityResultLauncher<Intent> filePickerLauncher;
+    private final Executor diskIO = AppExecutors.getInstance().diskIO();
+    private final Executor mainThread = AppExecutors.getInstance().mainThread();
+    // Contexte applicatif, utilisable depuis le pool disque même si le fragment est détaché
+    private Context importExportContext;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         binding = FragmentImportExportBinding.inflate(inflater, container, false);
-        importExportService = new ImportExportServiceImpl(requireContext());
+        importExportContext = requireContext().getApplicationContext();
+        importExportService = new ImportExportServiceImpl(importExportContext);
         setupFilePickerLauncher();
         setupButtonListeners();
         return binding.getRoot();
@@ -37,6 +51,7 @@ public class ImportExportFragment extends Fragment {
         binding.buttonExportBrut.setOnClickListener(v -> performExportBrut());
         binding.buttonExportJournalier.setOnClickListener(v -> performExportJournalier());
         binding.buttonImport.setOnClickListener(v -> performImport());
+        binding.buttonRebuildSummaries.setOnClickListener(v -> performRebuildSummaries());
     }
     
     private void setupFilePickerLauncher() {
@@ -44,10 +59,9 @@ public class ImportExportFragment extends Fragment {
             new ActivityResultContracts.StartActivityForResult(),
             result -> {
                 if (result.getResultCode() == Activity.RESULT_OK) {
-                    Intent data = result.getData();
-                    if (data != null && data.getData() != null) {
-                        Uri selectedFileUri = data.getData();
-                        importFromSelectedFile(selectedFileUri);
+                    List<Uri> selectedFileUris = getSelectedUris(result.getData());
+                    if (!selectedFileUris.isEmpty()) {
+                        importFromSelectedFiles(selectedFileUris);
                     } else {
                         showStatus("❌ Aucun fichier sélectionné", false);
                     }
@@ -60,29 +74,62 @@ public class ImportExportFragment extends Fragment {
 
 
     private void performExportBrut() {
-        try {
-            showStatus("🔄 Export brut en cours...", false);
-            int exportedCount = importExportService.exportData();
-            showStatus("✅ Export brut réussi!\n" + exportedCount + " courses exportées dans le dossier Téléchargements", true);
-        } catch (Exception e) {
-            Log.e("ImportExport", "Error during brut export", e);
-            showStatus("❌ Erreur lors de l'export brut:\n" + e.getMessage(), false);
-        } finally {
-            setButtonsEnabled(true);
-        }
+        showStatus("🔄 Export brut en cours...", false);
+        setButtonsEnabled(false);
+        diskIO.execute(() -> {
+            try {
+                int exportedCount = importExportService.exportData();
+                onUiThread(() -> showStatus("✅ Export brut réussi!\n" + exportedCount + " courses exportées dans le dossier Téléchargements", true));
+            } catch (Exception e) {
+                Log.e("ImportExport", "Error during brut export", e);
+                onUiThread(() -> showStatus("❌ Erreur lors de l'export brut:\n" + e.getMessage(), false));
+            } finally {
+                onUiThread(() -> setButtonsEnabled(true));
+            }
+        });
     }
 
     private void performExportJournalier() {
-        try {
-            showStatus("🔄 Export journalier en cours...", false);
-            int exportedCount = importExportService.exportDailyData();
-            showStatus("✅ Export journalier réussi!\n" + exportedCount + " jours exportés dans le dossier Téléchargements", true);
-        } catch (Exception e) {
-            Log.e("ImportExport", "Error during daily export", e);
-            showStatus("❌ Erreur lors de l'export journalier:\n" + e.getMessage(), false);
-        } finally {
-            setButtonsEnabled(true);
-        }
+        showStatus("🔄 Export journalier en cours...", false);
+        setButtonsEnabled(false);
+        diskIO.execute(() -> {
+            try {
+                int exportedCount = importExportService.exportDailyData();
+                onUiThread(() -> showStatus("✅ Export journalier réussi!\n" + exportedCount + " jours exportés dans le dossier Téléchargements", true));
+            } catch (Exception e) {
+                Log.e("ImportExport", "Error during daily export", e);
+                onUiThread(() -> showStatus("❌ Erreur lors de l'export journalier:\n" + e.getMessage(), false));
+            } finally {
+                onUiThread(() -> setButtonsEnabled(true));
+            }
+        });
+    }
+
+    private void performRebuildSummaries() {
+        showStatus("🔄 Reconstruction des résumés journaliers...", false);
+        setButtonsEnabled(false);
+        diskIO.execute(() -> {
+            try {
+                int dayCount = importExportService.rebuildDailySummaries();
+                onUiThread(() -> showStatus("✅ Résumés journaliers reconstruits!\n" + dayCount + " jours", true));
+            } catch (Exception e) {
+                Log.e("ImportExport", "Error during daily summary rebuild", e);
+                onUiThread(() -> showStatus("❌ Erreur lors de la reconstruction:\n" + e.getMessage(), false));
+            } finally {
+                onUiThread(() -> setButtonsEnabled(true));
+            }
+        });
+    }
+
+    /**
+     * Exécute une mise à jour de l'écran sur le thread UI, sauf si la vue a été détruite entre-temps.
+     */
+    private void onUiThread(Runnable action) {
+        mainThread.execute(() -> {
+            if (binding != null) {
+                action.run();
+            }
+        });
     }
 
     private void performImport() {
@@ -94,8 +141,9 @@ public class ImportExportFragment extends Fragment {
             Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
             intent.setType("*/*");
             intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
             
-            Intent chooser = Intent.createChooser(intent, "Sélectionner un fichier CSV");
+            Intent chooser = Intent.createChooser(intent, "Sélectionner un ou plusieurs fichiers CSV");
             filePickerLauncher.launch(chooser);
         } catch (Exception e) {
             Log.e("ImportExport", "Error opening file picker", e);
@@ -103,56 +151,64 @@ public class ImportExportFragment extends Fragment {
         }
     }
 
-    private void importFromSelectedFile(Uri fileUri) {
-        try {
-            showStatus("🔄 Import en cours...", false);
-            
-            String fileName = getFileName(fileUri);
-            ImportExportServiceImpl service = (ImportExportServiceImpl) importExportService;
-            int importedCount = service.importDataFromUri(fileUri, fileName);
-            
-            showStatus("✅ Import réussi!\n" + importedCount + " courses ajoutées\nFichier: " + fileName, true);
-            
-            notifyDataChanged();
-        } catch (Exception e) {
-            Log.e("ImportExport", "Error during import", e);
-            showStatus("❌ Erreur lors de l'import:\n" + e.getMessage(), false);
-        } finally {
-            setButtonsEnabled(true);
+    /**
+     * Fichiers choisis : plusieurs dans le ClipData si le sélecteur le permet, sinon un seul dans getData().
+     */
+    private static List<Uri> getSelectedUris(Intent data) {
+        List<Uri> uris = new ArrayList<>();
+        if (data == null) {
+            return uris;
         }
-    }
-    
-    private void notifyDataChanged() {
-        try {
-            androidx.lifecycle.ViewModelProvider viewModelProvider = new androidx.lifecycle.ViewModelProvider(requireActivity(), new androidx.lifecycle.ViewModelProvider.AndroidViewModelFactory(requireActivity().getApplication()));
-            com.driveup.ui.ride.RideViewModel rideViewModel = viewModelProvider.get(com.driveup.ui.ride.RideViewModel.class);
-            rideViewModel.refreshRides();
-            
-            // Rafraîchir aussi les statistiques
-            com.driveup.ui.stat.StatViewModel statViewModel = viewModelProvider.get(com.driveup.ui.stat.StatViewModel.class);
-            statViewModel.refreshStatistics();
-        } catch (Exception e) {
-            Log.e("ImportExport", "Error notifying data change", e);
+        ClipData clipData = data.getClipData();
+        if (clipData != null) {
+            for (int i = 0; i < clipData.getItemCount(); i++) {
+                uris.add(clipData.getItemAt(i).getUri());
+            }
+        } else if (data.getData() != null) {
+            uris.add(data.getData());
         }
+        return uris;
     }
 
-    private String getFileName(Uri uri) {
-        if (uri.getScheme().equals("content")) {
-            try (Cursor cursor = requireContext().getContentResolver().query(uri, null, null, null, null)) {
-                if (cursor != null && cursor.moveToFirst()) {
-                    int nameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
-                    if (nameIndex != -1) {
-                        return cursor.getString(nameIndex);
-                    }
-                }
+    private void importFromSelectedFiles(List<Uri> fileUris) {
+        showStatus(fileUris.size() == 1 ? "🔄 Import en cours..." : "🔄 Import de " + fileUris.size() + " fichiers en cours...", false);
+        setButtonsEnabled(false);
+        diskIO.execute(() -> {
+            try {
+                List<FileImportResult> results = importExportService.importDataFromUris(fileUris);
+                onUiThread(() -> showImportResults(results));
+            } catch (Exception e) {
+                Log.e("ImportExport", "Error during import", e);
+                onUiThread(() -> showStatus("❌ Erreur lors de l'import:\n" + e.getMessage(), false));
+            } finally {
+                onUiThread(() -> setButtonsEnabled(true));
+            }
+        });
+    }
+
+    private void showImportResults(List<FileImportResult> results) {
+        int importedCount = 0;
+        boolean allSuccessful = true;
+        StringBuilder details = new StringBuilder();
+        for (FileImportResult result : results) {
+            importedCount += result.getImportedCount();
+            allSuccessful &= result.isSuccessful();
+            details.append("\n").append(result.isSuccessful() ? "• " : "❌ ").append(result.getFileName())
+                    .append(" : ").append(result.getImportedCount()).append(" courses");
+            if (result.getSkippedCount() > 0) {
+                details.append(", ").append(result.getSkippedCount()).append(" lignes ignorées");
+            }
+            if (!result.isSuccessful()) {
+                details.append(" (").append(result.getError()).append(")");
             }
         }
-        String result = uri.getPath();
-        int cut = result.lastIndexOf('/');
-        if (cut != -1) {
-            result = result.substring(cut + 1);
+        if (importedCount == 0 && allSuccessful) {
+            showStatus("❌ Aucune donnée valide trouvée" + details, false);
+        } else if (allSuccessful) {
+            showStatus("✅ Import réussi!\n" + importedCount + " courses ajoutées" + details, true);
+        } else {
+            showStatus("⚠️ Import partiel\n" + importedCount + " courses ajoutées" + details, false);
         }
-        return result;
     }
 
     private void showStatus(String message, boolean isSuccess) {
@@ -167,8 +223,10 @@ public class ImportExportFragment extends Fragment {
         binding.buttonImport.setEnabled(enabled);
         binding.buttonExportBrut.setEnabled(enabled);
         binding.buttonExportJournalier.setEnabled(enabled);
+        binding.buttonRebuildSummaries.setEnabled(enabled);
         binding.buttonExportBrut.setAlpha(enabled ? 1.0f : 0.6f);
         binding.buttonExportJournalier.setAlpha(enabled ? 1.0f : 0.6f);
         binding.buttonImport.setAlpha(enabled ? 1.0f : 0.6f);
+        binding.buttonRebuildSummaries.setAlpha(enabled ? 1.0f : 0.6f);
     }
 }
\ No newline at end of file
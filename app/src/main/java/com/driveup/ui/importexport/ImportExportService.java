@@ -1,10 +1,18 @@
 package com.driveup.ui.importexport;
 
+import android.net.Uri;
+
+import java.util.List;
+
 public interface ImportExportService {
 
     int importData();
 
+    List<FileImportResult> importDataFromUris(List<Uri> fileUris);
+
     int exportData();
 
     int exportDailyData();
+
+    int rebuildDailySummaries();
 }
@@ -1,43 +1,61 @@
 package com.driveup.ui.importexport;
 
 import android.content.Context;
+import android.database.Cursor;
 import android.net.Uri;
 import android.os.Environment;
+import android.provider.OpenableColumns;
 import android.util.Log;
 
-import com.driveup.DataBaseHelper;
-import com.driveup.ui.ride.Ride;
+import com.driveup.AppExecutors;
+import com.driveup.RideRepository;
 
 import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.time.LocalDate;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
-import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 public class ImportExportServiceImpl implements ImportExportService {
     
     private static final String TAG = "ImportExportService";
     private static final String CSV_HEADER = "ID,Date,Heure Début,Heure Fin,Prix";
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    private static final int DEFAULT_IMPORT_CHUNK_SIZE = 1000; // Courses par transaction lors d'un import
     private static final String DAILY_CSV_HEADER = "Date,Heure Début Première Course,Heure Fin Dernière Course,Nombre de Courses,Total (€)";
     
     private Context context;
-    private DataBaseHelper dbHelper;
+    private RideRepository repository;
+    private final int importChunkSize;
     
     public ImportExportServiceImpl(Context context) {
+        this(context, DEFAULT_IMPORT_CHUNK_SIZE);
+    }
+    
+    /**
+     * @param importChunkSize courses enregistrées par transaction lors d'un import : des lots plus grands
+     *                        importent plus vite, des lots plus petits rendent les premières courses
+     *                        visibles plus tôt et bornent davantage la mémoire
+     */
+    public ImportExportServiceImpl(Context context, int importChunkSize) {
+        if (importChunkSize <= 0) {
+            throw new IllegalArgumentException("Taille de lot invalide : " + importChunkSize);
+        }
         this.context = context;
-        this.dbHelper = DataBaseHelper.getInstance(context);
+        this.repository = RideRepository.getInstance(context);
+        this.importChunkSize = importChunkSize;
     }
     
     @Override
@@ -47,47 +65,82 @@ public class ImportExportServiceImpl implements ImportExportService {
             if (!csvFile.exists()) {
                 throw new RuntimeException("Fichier CSV introuvable dans Téléchargements");
             }
-            
-            List<Ride> rides = parseCsvFile(csvFile);
-            if (rides == null || rides.isEmpty()) {
+
+            ParallelCsvImporter.Source source = new ParallelCsvImporter.Source(csvFile.getName(),
+                    () -> new BufferedReader(new FileReader(csvFile)));
+            FileImportResult result = newImporter().importAll(Collections.singletonList(source)).get(0);
+            if (!result.isSuccessful()) {
+                throw new RuntimeException(result.getError() + " (" + result.getImportedCount() + " courses déjà importées)");
+            }
+            if (result.getImportedCount() == 0) {
                 throw new RuntimeException("Aucune donnée valide trouvée dans le fichier CSV");
             }
-
-            dbHelper.insertRides(rides);
-            return rides.size();
+            return result.getImportedCount();
         } catch (Exception e) {
             Log.e(TAG, "Error importing data", e);
             throw new RuntimeException("Erreur lors de l'import: " + e.getMessage());
         }
     }
     
-    
-    public int importDataFromUri(Uri fileUri, String fileName) {
+    /**
+     * Importe plusieurs fichiers en parallèle (voir {@link ParallelCsvImporter}). Une erreur de lecture
+     * n'interrompt que son fichier et figure dans son résultat ; seule une erreur d'écriture lève une exception.
+     */
+    @Override
+    public List<FileImportResult> importDataFromUris(List<Uri> fileUris) {
         try {
-            List<Ride> rides = parseCsvFromUri(fileUri);
-            if (rides == null || rides.isEmpty()) {
-                throw new RuntimeException("Aucune donnée valide trouvée dans le fichier CSV");
+            List<ParallelCsvImporter.Source> sources = new ArrayList<>(fileUris.size());
+            for (Uri fileUri : fileUris) {
+                sources.add(new ParallelCsvImporter.Source(getFileName(fileUri), () -> {
+                    InputStream inputStream = context.getContentResolver().openInputStream(fileUri);
+                    if (inputStream == null) {
+                        throw new IOException("Fichier illisible");
+                    }
+                    return new BufferedReader(new InputStreamReader(inputStream));
+                }));
             }
-
-            dbHelper.insertRides(rides);
-            return rides.size();
+            return newImporter().importAll(sources);
         } catch (Exception e) {
-            Log.e(TAG, "Error importing data from URI", e);
+            Log.e(TAG, "Error importing data from URIs", e);
             throw new RuntimeException("Erreur lors de l'import: " + e.getMessage());
         }
     }
     
+    private ParallelCsvImporter newImporter() {
+        AppExecutors executors = AppExecutors.getInstance();
+        return new ParallelCsvImporter(executors.importParsing(), executors.getImportParsingThreads(),
+                importChunkSize, repository::insertRides);
+    }
+    
+    private String getFileName(Uri uri) {
+        if ("content".equals(uri.getScheme())) {
+            try (Cursor cursor = context.getContentResolver().query(uri, null, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    int nameIndex = cursor.getColumnIndex(OpenableColumns.DISPLAY_NAME);
+                    if (nameIndex != -1) {
+                        return cursor.getString(nameIndex);
+                    }
+                }
+            }
+        }
+        String result = uri.getPath();
+        int cut = result.lastIndexOf('/');
+        if (cut != -1) {
+            result = result.substring(cut + 1);
+        }
+        return result;
+    }
+    
     @Override
     public int exportData() {
         try {
-            List<Ride> rides = dbHelper.getAllRides();
-            if (rides.isEmpty()) {
+            File csvFile = getCsvFile();
+            int exported = writeCsvFile(csvFile);
+            if (exported == 0) {
+                csvFile.delete();
                 throw new RuntimeException("Aucune course à exporter");
             }
-            
-            File csvFile = getCsvFile();
-            writeCsvFile(csvFile, rides);
-            return rides.size();
+            return exported;
         } catch (Exception e) {
             Log.e(TAG, "Error exporting data", e);
             throw new RuntimeException("Erreur lors de l'export: " + e.getMessage());
@@ -97,12 +150,11 @@ public class ImportExportServiceImpl implements ImportExportService {
     @Override
     public int exportDailyData() {
         try {
-            List<Ride> rides = dbHelper.getAllRides();
-            if (rides.isEmpty()) {
+            List<DailyRideSummary> dailySummaries = repository.getDailySummaries();
+            if (dailySummaries.isEmpty()) {
                 throw new RuntimeException("Aucune course à exporter");
             }
-            
-            List<DailyRideSummary> dailySummaries = createDailySummaries(rides);
+
             File csvFile = getDailyCsvFile();
             writeDailyCsvFile(csvFile, dailySummaries);
             return dailySummaries.size();
@@ -111,6 +163,16 @@ public class ImportExportServiceImpl implements ImportExportService {
             throw new RuntimeException("Erreur lors de l'export journalier: " + e.getMessage());
         }
     }
+
+    @Override
+    public int rebuildDailySummaries() {
+        try {
+            return repository.repairDailySummaries();
+        } catch (Exception e) {
+            Log.e(TAG, "Error rebuilding daily summaries", e);
+            throw new RuntimeException("Erreur lors de la reconstruction des résumés journaliers: " + e.getMessage());
+        }
+    }
     
     private File getCsvFile() {
         File downloadsDir = Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DOWNLOADS);
@@ -134,117 +196,17 @@ public class ImportExportServiceImpl implements ImportExportService {
         return new File(downloadsDir, filename);
     }
     
-    private List<Ride> parseCsvFile(File csvFile) {
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
-            return parseCsvFromReader(br);
-        } catch (IOException e) {
-            Log.e(TAG, "Error reading CSV file", e);
-            return null;
-        }
-    }
-    
-    private List<Ride> parseCsvFromUri(Uri fileUri) {
-        try (InputStream inputStream = context.getContentResolver().openInputStream(fileUri);
-             BufferedReader br = new BufferedReader(new InputStreamReader(inputStream))) {
-            return parseCsvFromReader(br);
-        } catch (IOException e) {
-            Log.e(TAG, "Error reading CSV file from URI", e);
-            return null;
-        }
-    }
-    
-    private List<Ride> parseCsvFromReader(BufferedReader br) throws IOException {
-        List<Ride> rides = new ArrayList<>();
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-        
-        String line;
-        boolean isFirstLine = true;
-        
-        while ((line = br.readLine()) != null) {
-            if (isFirstLine) {
-                isFirstLine = false;
-                continue; // Skip header
-            }
-            
-            String[] values = line.split(",");
-            if (values.length == 5) {
-                try {
-                    Ride ride = new Ride();
-                    ride.setDate(LocalDate.parse(values[1].trim(), dateFormatter));
-                    ride.setStartHour(LocalTime.parse(values[2].trim(), timeFormatter));
-                    ride.setEndHour(LocalTime.parse(values[3].trim(), timeFormatter));
-                    ride.setPrice(Double.parseDouble(values[4].trim()));
-                    rides.add(ride);
-                } catch (DateTimeParseException | NumberFormatException e) {
-                    Log.w(TAG, "Skipping invalid line: " + line, e);
-                }
-            } else if (values.length == 4) {
-                // Support old format without ID for backward compatibility
-                try {
-                    Ride ride = new Ride();
-                    ride.setDate(LocalDate.parse(values[0].trim(), dateFormatter));
-                    ride.setStartHour(LocalTime.parse(values[1].trim(), timeFormatter));
-                    ride.setEndHour(LocalTime.parse(values[2].trim(), timeFormatter));
-                    ride.setPrice(Double.parseDouble(values[3].trim()));
-                    rides.add(ride);
-                } catch (DateTimeParseException | NumberFormatException e) {
-                    Log.w(TAG, "Skipping invalid line: " + line, e);
-                }
-            }
-        }
-        
-        return rides;
-    }
-    
-    private void writeCsvFile(File csvFile, List<Ride> rides) throws IOException {
-        try (FileWriter writer = new FileWriter(csvFile)) {
+    /**
+     * Écrit les courses au fil du curseur, sans les charger en mémoire ni créer d'objet par course.
+     *
+     * @return le nombre de courses écrites
+     */
+    private int writeCsvFile(File csvFile) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(csvFile),
+                StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE)) {
             writer.append(CSV_HEADER).append("\n");
-
-            DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
-            
-            for (Ride ride : rides) {
-                writer.append(String.valueOf(ride.getId()))
-                      .append(",")
-                      .append(ride.getDate().format(dateFormatter))
-                      .append(",")
-                      .append(ride.getStartHour().format(timeFormatter))
-                      .append(",")
-                      .append(ride.getEndHour().format(timeFormatter))
-                      .append(",")
-                      .append(String.valueOf(ride.getPrice()))
-                      .append("\n");
-            }
-        }
-    }
-
-    private List<DailyRideSummary> createDailySummaries(List<Ride> rides) {
-        // Grouper les courses par date
-        Map<LocalDate, List<Ride>> ridesByDate = rides.stream()
-                .collect(Collectors.groupingBy(Ride::getDate));
-
-        List<DailyRideSummary> summaries = new ArrayList<>();
-
-        for (Map.Entry<LocalDate, List<Ride>> entry : ridesByDate.entrySet()) {
-            LocalDate date = entry.getKey();
-            List<Ride> dayRides = entry.getValue();
-
-            // Trier les courses par heure de début
-            dayRides.sort(Comparator.comparing(Ride::getStartHour));
-
-            // Calculer les statistiques
-            LocalTime firstRideStart = dayRides.get(0).getStartHour();
-            LocalTime lastRideEnd = dayRides.get(dayRides.size() - 1).getEndHour();
-            int rideCount = dayRides.size();
-            double totalPrice = dayRides.stream().mapToDouble(Ride::getPrice).sum();
-
-            summaries.add(new DailyRideSummary(date, firstRideStart, lastRideEnd, rideCount, totalPrice));
+            return repository.forEachRide(new RideCsvWriter(writer));
         }
-
-        // Trier par date
-        summaries.sort(Comparator.comparing(DailyRideSummary::getDate));
-        return summaries;
     }
 
     private void writeDailyCsvFile(File csvFile, List<DailyRideSummary> summaries) throws IOException {
@@ -0,0 +1,229 @@
+package com.driveup.ui.importexport;
+
+import android.util.Log;
+
+import com.driveup.ui.ride.Ride;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Import de plusieurs fichiers CSV à la fois. Chaque fichier est lu par une tâche du pool de lecture,
+ * qui dépose ses courses par lots dans une file bornée ; le thread appelant est le seul à écrire, en
+ * regroupant les lots reçus (de fichiers différents si besoin) en transactions de {@code chunkSize} courses.
+ * <p>
+ * La file bornée fixe la mémoire à quelques lots par lecteur quelle que soit la taille des fichiers, et
+ * fait attendre les lecteurs quand l'écriture ne suit pas. Une erreur de lecture n'arrête que son fichier :
+ * les courses lues avant l'erreur sont enregistrées et l'erreur est rapportée dans son {@link FileImportResult}.
+ * Une erreur d'écriture arrête tout l'import.
+ */
+class ParallelCsvImporter {
+
+    private static final String TAG = "ParallelCsvImporter";
+    private static final int QUEUED_CHUNKS_PER_READER = 2;
+    // Délai après lequel un lecteur bloqué sur la file vérifie que l'import n'a pas été abandonné
+    private static final long OFFER_TIMEOUT_MS = 200;
+    // Lignes invalides détaillées dans le journal par fichier, sans leur contenu ; les suivantes sont comptées
+    private static final int LOGGED_INVALID_LINES = 5;
+
+    interface ReaderOpener {
+        BufferedReader open() throws IOException;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Source {
+        private String name;
+        private ReaderOpener opener;
+    }
+
+    /**
+     * Élément de la file : un lot de courses d'un fichier, ou la fin de ce fichier (rides null).
+     */
+    private static class Message {
+        final int source;
+        final List<Ride> rides;
+        final int skippedCount;
+        final String error;
+
+        Message(int source, List<Ride> rides, int skippedCount, String error) {
+            this.source = source;
+            this.rides = rides;
+            this.skippedCount = skippedCount;
+            this.error = error;
+        }
+    }
+
+    private final Executor readers;
+    private final int readerCount;
+    private final int chunkSize;
+    private final Consumer<List<Ride>> writer;
+    private volatile boolean abandoned;
+
+    /**
+     * @param writer enregistre un lot dans sa propre transaction ; appelé uniquement depuis le thread
+     *               de {@link #importAll}
+     */
+    ParallelCsvImporter(Executor readers, int readerCount, int chunkSize, Consumer<List<Ride>> writer) {
+        this.readers = readers;
+        this.readerCount = readerCount;
+        this.chunkSize = chunkSize;
+        this.writer = writer;
+    }
+
+    /**
+     * Lit et enregistre toutes les sources ; à appeler hors du thread UI. Un importeur ne sert qu'une fois.
+     *
+     * @return un résultat par source, dans l'ordre des sources
+     */
+    List<FileImportResult> importAll(List<Source> sources) {
+        FileImportResult[] results = new FileImportResult[sources.size()];
+        BlockingQueue<Message> queue = new ArrayBlockingQueue<>(readerCount * QUEUED_CHUNKS_PER_READER);
+        for (int i = 0; i < sources.size(); i++) {
+            results[i] = new FileImportResult(sources.get(i).getName(), 0, 0, null);
+            int source = i;
+            readers.execute(() -> read(source, sources.get(source), queue));
+        }
+
+        // Courses du lot en cours d'écriture, par source
+        int[] pending = new int[sources.size()];
+        List<Ride> batch = new ArrayList<>(chunkSize);
+        int remaining = sources.size();
+        try {
+            while (remaining > 0) {
+                Message message = queue.take();
+                if (message.rides == null) {
+                    results[message.source].setSkippedCount(message.skippedCount);
+                    results[message.source].setError(message.error);
+                    remaining--;
+                    continue;
+                }
+                // Un lot reçu est réparti pour qu'aucune transaction ne dépasse chunkSize courses
+                List<Ride> rides = message.rides;
+                int from = 0;
+                while (from < rides.size()) {
+                    int count = Math.min(chunkSize - batch.size(), rides.size() - from);
+                    batch.addAll(rides.subList(from, from + count));
+                    pending[message.source] += count;
+                    from += count;
+                    if (batch.size() == chunkSize) {
+                        write(batch, pending, results);
+                    }
+                }
+            }
+            write(batch, pending, results);
+        } catch (InterruptedException e) {
+            abandoned = true;
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import interrompu");
+        } catch (RuntimeException e) {
+            abandoned = true;
+            throw e;
+        }
+        return Arrays.asList(results);
+    }
+
+    private void write(List<Ride> batch, int[] pending, FileImportResult[] results) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        writer.accept(batch);
+        batch.clear();
+        for (int i = 0; i < pending.length; i++) {
+            results[i].setImportedCount(results[i].getImportedCount() + pending[i]);
+            pending[i] = 0;
+        }
+    }
+
+    private void read(int source, Source file, BlockingQueue<Message> queue) {
+        RideCsvParser parser = new RideCsvParser();
+        List<Ride> chunk = new ArrayList<>(chunkSize);
+        int skipped = 0;
+        // Reste non null si le lecteur sort sur une exception imprévue, avant d'avoir rapporté l'erreur
+        String error = "Lecture abandonnée";
+        try {
+            try (BufferedReader br = file.getOpener().open()) {
+                String line = br.readLine(); // Skip header
+                int lineNumber = 1;
+                while (!abandoned && (line = br.readLine()) != null) {
+                    lineNumber++;
+                    RideCsvParser.Result result = parser.parse(line);
+                    if (result != RideCsvParser.Result.OK) {
+                        skipped++;
+                        if (skipped <= LOGGED_INVALID_LINES) {
+                            Log.w(TAG, file.getName() + ": skipping invalid line " + lineNumber + " (" + result + ")");
+                        }
+                        continue;
+                    }
+                    chunk.add(parser.toRide());
+                    if (chunk.size() == chunkSize) {
+                        offer(queue, new Message(source, chunk, 0, null));
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+                error = null;
+            } catch (Exception e) {
+                if (e instanceof InterruptedException) {
+                    Thread.currentThread().interrupt();
+                }
+                error = e.getMessage() != null ? e.getMessage() : e.toString();
+                Log.e(TAG, "Error reading " + file.getName(), e);
+            }
+            if (skipped > LOGGED_INVALID_LINES) {
+                Log.w(TAG, file.getName() + ": " + skipped + " invalid lines skipped");
+            }
+            // Dernier lot, complet ou non : après une erreur aussi, les courses déjà lues sont enregistrées
+            if (!chunk.isEmpty()) {
+                offer(queue, new Message(source, chunk, 0, null));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // Toujours déposée : importAll attend la fin de chaque source avant de rendre la main
+            offerEnd(queue, new Message(source, null, skipped, error));
+        }
+    }
+
+    /**
+     * Dépose la fin d'une source même si le lecteur a été interrompu ; l'interruption est restaurée ensuite.
+     */
+    private void offerEnd(BlockingQueue<Message> queue, Message end) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (true) {
+                try {
+                    offer(queue, end);
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Dépose un message, en attendant tant que la file est pleine et que l'import n'est pas abandonné.
+     */
+    private void offer(BlockingQueue<Message> queue, Message message) throws InterruptedException {
+        while (!queue.offer(message, OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            if (abandoned) {
+                return;
+            }
+        }
+    }
+}
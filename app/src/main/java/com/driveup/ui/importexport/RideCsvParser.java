@@ -0,0 +1,261 @@
+package com.driveup.ui.importexport;
+
+import com.driveup.RideEncoding;
+import com.driveup.ui.ride.Ride;
+
+/**
+ * Lecture d'une ligne CSV de course, caractère par caractère, directement dans des champs primitifs :
+ * jour epoch, minutes de début et de fin, prix en centimes. Aucun objet n'est créé par ligne et une ligne
+ * invalide est signalée par son {@link Result}, sans exception.
+ * <p>
+ * Formats acceptés : {@code ID,Date,Heure Début,Heure Fin,Prix} (l'ID est ignoré) et l'ancien format sans
+ * ID. Dates en {@code yyyy-MM-dd}, heures en {@code HH:mm}, prix décimal avec un point. Chaque champ peut
+ * être entouré de blancs (caractères jusqu'à l'espace, comme {@link String#trim()} : tabulations, {@code \r}
+ * final...) et de guillemets ({@code ""} pour un guillemet dans un champ entre guillemets). Les virgules en fin
+ * de ligne sont ignorées, comme les champs vides finaux de {@code String.split(",")}.
+ * <p>
+ * Réutilisable d'une ligne à l'autre mais non synchronisé : un parseur par import.
+ */
+final class RideCsvParser {
+
+    enum Result {
+        OK,
+        WRONG_COLUMN_COUNT,
+        UNTERMINATED_QUOTE,
+        BAD_DATE,
+        BAD_TIME,
+        BAD_PRICE
+    }
+
+    private static final int MAX_COLUMNS = 5;
+    // Au-delà, le prix en centimes ne tient plus dans un long
+    private static final int MAX_PRICE_DIGITS = 16;
+
+    // Bornes [début, fin[ du contenu de chaque champ, guillemets et espaces exclus
+    private final int[] fieldStart = new int[MAX_COLUMNS];
+    private final int[] fieldEnd = new int[MAX_COLUMNS];
+
+    private long epochDay;
+    private int startMinute;
+    private int endMinute;
+    private long priceCents;
+
+    Result parse(CharSequence line) {
+        int columns = splitFields(line);
+        if (columns < 0) {
+            return Result.UNTERMINATED_QUOTE;
+        }
+        int first;
+        if (columns == 5) {
+            first = 1;
+        } else if (columns == 4) {
+            first = 0;
+        } else {
+            return Result.WRONG_COLUMN_COUNT;
+        }
+        if (!parseDate(line, fieldStart[first], fieldEnd[first])) {
+            return Result.BAD_DATE;
+        }
+        startMinute = parseTime(line, fieldStart[first + 1], fieldEnd[first + 1]);
+        endMinute = parseTime(line, fieldStart[first + 2], fieldEnd[first + 2]);
+        if (startMinute < 0 || endMinute < 0) {
+            return Result.BAD_TIME;
+        }
+        if (!parsePrice(line, fieldStart[first + 3], fieldEnd[first + 3])) {
+            return Result.BAD_PRICE;
+        }
+        return Result.OK;
+    }
+
+    long getEpochDay() {
+        return epochDay;
+    }
+
+    int getStartMinute() {
+        return startMinute;
+    }
+
+    int getEndMinute() {
+        return endMinute;
+    }
+
+    long getPriceCents() {
+        return priceCents;
+    }
+
+    /**
+     * Course de la dernière ligne lue avec succès.
+     */
+    Ride toRide() {
+        return new Ride(null, RideEncoding.toLocalDate(epochDay), RideEncoding.toLocalTime(startMinute),
+                RideEncoding.toLocalTime(endMinute), RideEncoding.fromCents(priceCents));
+    }
+
+    /**
+     * @return le nombre de champs (MAX_COLUMNS + 1 s'il y en a trop), -1 pour un guillemet non fermé
+     */
+    private int splitFields(CharSequence line) {
+        int length = line.length();
+        while (length > 0 && line.charAt(length - 1) == ',') {
+            length--;
+        }
+        int column = 0;
+        int i = 0;
+        while (true) {
+            while (i < length && line.charAt(i) <= ' ') {
+                i++;
+            }
+            int start = i;
+            int end;
+            if (i < length && line.charAt(i) == '"') {
+                start = ++i;
+                while (true) {
+                    if (i >= length) {
+                        return -1;
+                    }
+                    if (line.charAt(i) == '"') {
+                        if (i + 1 < length && line.charAt(i + 1) == '"') {
+                            i += 2; // Guillemet doublé : il fait partie du champ
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                end = i++;
+                while (i < length && line.charAt(i) != ',') {
+                    if (line.charAt(i) > ' ') {
+                        end = -1; // Texte après le guillemet fermant : le champ sera rejeté par son analyse
+                    }
+                    i++;
+                }
+            } else {
+                while (i < length && line.charAt(i) != ',') {
+                    i++;
+                }
+                end = i;
+                while (end > start && line.charAt(end - 1) <= ' ') {
+                    end--;
+                }
+            }
+            if (column == MAX_COLUMNS) {
+                return MAX_COLUMNS + 1;
+            }
+            fieldStart[column] = start;
+            fieldEnd[column] = end < 0 ? start - 1 : end;
+            column++;
+            if (i >= length) {
+                return column;
+            }
+            i++; // Virgule
+        }
+    }
+
+    private boolean parseDate(CharSequence line, int start, int end) {
+        if (end - start != 10 || line.charAt(start + 4) != '-' || line.charAt(start + 7) != '-') {
+            return false;
+        }
+        int year = digits(line, start, 4);
+        int month = digits(line, start + 5, 2);
+        int day = digits(line, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return false;
+        }
+        epochDay = RideEncoding.toEpochDay(year, month, day);
+        return true;
+    }
+
+    /**
+     * @return la minute de la journée, -1 si le champ n'est pas une heure {@code HH:mm}
+     */
+    private static int parseTime(CharSequence line, int start, int end) {
+        if (end - start != 5 || line.charAt(start + 2) != ':') {
+            return -1;
+        }
+        int hour = digits(line, start, 2);
+        int minute = digits(line, start + 3, 2);
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59) {
+            return -1;
+        }
+        return hour * 60 + minute;
+    }
+
+    /**
+     * Prix décimal arrondi au centime le plus proche (demi-centime arrondi vers le haut en valeur absolue).
+     */
+    private boolean parsePrice(CharSequence line, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        long units = 0;
+        int integerDigits = 0;
+        while (i < end && isDigit(line.charAt(i))) {
+            if (++integerDigits > MAX_PRICE_DIGITS) {
+                return false;
+            }
+            units = units * 10 + (line.charAt(i) - '0');
+            i++;
+        }
+        int cents = 0;
+        int fractionDigits = 0;
+        if (i < end && line.charAt(i) == '.') {
+            i++;
+            while (i < end && isDigit(line.charAt(i))) {
+                int digit = line.charAt(i) - '0';
+                if (fractionDigits < 2) {
+                    cents = cents * 10 + digit;
+                } else if (fractionDigits == 2 && digit >= 5) {
+                    cents++;
+                }
+                fractionDigits++;
+                i++;
+            }
+        }
+        if (i != end || integerDigits + fractionDigits == 0) {
+            return false;
+        }
+        if (fractionDigits == 1) {
+            cents *= 10;
+        }
+        long total = units * 100 + cents;
+        priceCents = negative ? -total : total;
+        return true;
+    }
+
+    /**
+     * @return la valeur des {@code count} chiffres à partir de {@code start}, -1 si l'un n'est pas un chiffre
+     */
+    private static int digits(CharSequence line, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = line.charAt(i);
+            if (!isDigit(c)) {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+}
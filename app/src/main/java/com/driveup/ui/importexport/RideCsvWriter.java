@@ -0,0 +1,108 @@
+package com.driveup.ui.importexport;
+
+import com.driveup.DataBaseHelper;
+import com.driveup.RideEncoding;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Écriture des lignes {@code ID,Date,Heure Début,Heure Fin,Prix} directement depuis les colonnes stockées :
+ * chaque ligne est composée chiffre par chiffre dans un tampon réutilisé, sans passer par LocalDate,
+ * LocalTime ni String.valueOf(double). Le prix garde la forme qu'avait l'ancien export ("12.5", "12.0",
+ * "12.34"), relue telle quelle par {@link RideCsvParser}.
+ * <p>
+ * Le {@link Writer} fourni doit être tamponné ; il n'est ni vidé ni fermé ici.
+ */
+final class RideCsvWriter implements DataBaseHelper.RideRowVisitor {
+
+    // ID (20 chiffres et signe), date, heures, prix en centimes (19 chiffres, signe et point), séparateurs
+    private static final int MAX_LINE_LENGTH = 96;
+
+    private final Writer out;
+    private final char[] line = new char[MAX_LINE_LENGTH];
+    // Chiffres d'un nombre, écrits à l'envers avant d'être recopiés dans la ligne
+    private final char[] digits = new char[20];
+
+    RideCsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void visit(long id, long epochDay, int startMinute, int endMinute, long priceCents) throws IOException {
+        int length = appendLong(0, id);
+        line[length++] = ',';
+        length = appendDate(length, epochDay);
+        line[length++] = ',';
+        length = appendTime(length, startMinute);
+        line[length++] = ',';
+        length = appendTime(length, endMinute);
+        line[length++] = ',';
+        length = appendPrice(length, priceCents);
+        line[length++] = '\n';
+        out.write(line, 0, length);
+    }
+
+    private int appendDate(int at, long epochDay) {
+        int absoluteMonth = RideEncoding.toAbsoluteMonth(epochDay);
+        int year = Math.floorDiv(absoluteMonth, 12);
+        if (year < 0 || year > 9999) {
+            // Hors du format yyyy : cas théorique, laissé à LocalDate
+            String date = RideEncoding.toLocalDate(epochDay).toString();
+            date.getChars(0, date.length(), line, at);
+            return at + date.length();
+        }
+        at = appendPadded(at, year, 4);
+        line[at++] = '-';
+        at = appendPadded(at, Math.floorMod(absoluteMonth, 12) + 1, 2);
+        line[at++] = '-';
+        return appendPadded(at, RideEncoding.toDayOfMonth(epochDay), 2);
+    }
+
+    private int appendTime(int at, int minuteOfDay) {
+        at = appendPadded(at, minuteOfDay / 60, 2);
+        line[at++] = ':';
+        return appendPadded(at, minuteOfDay % 60, 2);
+    }
+
+    /**
+     * Euros avec une décimale si elle suffit ("12.5", "12.0"), deux sinon ("12.34").
+     */
+    private int appendPrice(int at, long priceCents) {
+        if (priceCents < 0) {
+            line[at++] = '-';
+        }
+        long cents = Math.abs(priceCents);
+        at = appendLong(at, cents / 100);
+        line[at++] = '.';
+        int fraction = (int) (cents % 100);
+        line[at++] = (char) ('0' + fraction / 10);
+        if (fraction % 10 != 0) {
+            line[at++] = (char) ('0' + fraction % 10);
+        }
+        return at;
+    }
+
+    private int appendPadded(int at, int value, int width) {
+        for (int i = at + width - 1; i >= at; i--) {
+            line[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return at + width;
+    }
+
+    private int appendLong(int at, long value) {
+        if (value < 0) {
+            line[at++] = '-';
+        }
+        int count = 0;
+        do {
+            digits[count++] = (char) ('0' + Math.abs(value % 10));
+            value /= 10;
+        } while (value != 0);
+        while (count > 0) {
+            line[at++] = digits[--count];
+        }
+        return at;
+    }
+}
@@ -4,17 +4,34 @@ import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.driveup.databinding.ItemRideCardBinding;
 
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
+import java.util.Objects;
+
+/**
+ * Les listes soumises sont comparées en arrière-plan par {@link ListAdapter} : seules les
+ * insertions, suppressions et modifications réelles sont notifiées, identifiées par l'id de la course.
+ */
+public class RideAdapter extends ListAdapter<Ride, RideAdapter.RideViewHolder> {
+
+    private static final DiffUtil.ItemCallback<Ride> DIFF_CALLBACK = new DiffUtil.ItemCallback<Ride>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Ride oldRide, @NonNull Ride newRide) {
+            return Objects.equals(oldRide.getId(), newRide.getId());
+        }
 
-public class RideAdapter extends RecyclerView.Adapter<RideAdapter.RideViewHolder> {
+        @Override
+        public boolean areContentsTheSame(@NonNull Ride oldRide, @NonNull Ride newRide) {
+            return oldRide.equals(newRide);
+        }
+    };
 
-    private List<Ride> rides;
     private OnRideClickListener listener;
     private DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("d MMMM yyyy");
     private DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
@@ -23,9 +40,10 @@ public class RideAdapter extends RecyclerView.Adapter<RideAdapter.RideViewHolder
         void onDeleteRide(Ride ride);
     }
 
-    public RideAdapter(List<Ride> rides, OnRideClickListener listener) {
-        this.rides = rides;
+    public RideAdapter(OnRideClickListener listener) {
+        super(DIFF_CALLBACK);
         this.listener = listener;
+        setHasStableIds(true);
     }
 
     @NonNull
@@ -38,18 +56,13 @@ public class RideAdapter extends RecyclerView.Adapter<RideAdapter.RideViewHolder
 
     @Override
     public void onBindViewHolder(@NonNull RideViewHolder holder, int position) {
-        Ride ride = rides.get(position);
+        Ride ride = getItem(position);
         holder.bind(ride);
     }
 
     @Override
-    public int getItemCount() {
-        return rides.size();
-    }
-
-    public void updateRides(List<Ride> newRides) {
-        this.rides = newRides;
-        notifyDataSetChanged();
+    public long getItemId(int position) {
+        return getItem(position).getId();
     }
 
     class RideViewHolder extends RecyclerView.ViewHolder {
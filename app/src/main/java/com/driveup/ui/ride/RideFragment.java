@@ -1,7 +1,6 @@
 package com.driveup.ui.ride;
 
 import android.os.Bundle;
-import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,13 +9,15 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import com.driveup.databinding.FragmentRideBinding;
-import com.driveup.ui.stat.StatViewModel;
 
 
 public class RideFragment extends Fragment implements RideAdapter.OnRideClickListener, AddRideDialog.OnRideAddedListener {
 
     private static final String TAG = "RideFragment";
+    // Nombre de cartes restantes avant le bord de la fenêtre à partir duquel la page suivante est chargée
+    private static final int PREFETCH_DISTANCE = 15;
     private FragmentRideBinding binding;
     private RideViewModel rideViewModel;
     private RideAdapter rideAdapter;
@@ -38,9 +39,21 @@ public class RideFragment extends Fragment implements RideAdapter.OnRideClickLis
     
 
     private void setupRecyclerView() {
-        rideAdapter = new RideAdapter(null, this);
-        binding.recyclerRides.setLayoutManager(new LinearLayoutManager(getContext()));
+        rideAdapter = new RideAdapter(this);
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        binding.recyclerRides.setLayoutManager(layoutManager);
         binding.recyclerRides.setAdapter(rideAdapter);
+        binding.recyclerRides.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy > 0 && layoutManager.findLastVisibleItemPosition()
+                        >= rideAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    rideViewModel.loadOlderRides();
+                } else if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= PREFETCH_DISTANCE) {
+                    rideViewModel.loadNewerRides();
+                }
+            }
+        });
     }
 
     private void setupClickListeners() {
@@ -50,7 +63,7 @@ public class RideFragment extends Fragment implements RideAdapter.OnRideClickLis
     private void observeViewModel() {
         rideViewModel.getRides().observe(getViewLifecycleOwner(), rides -> {
             if (rides != null) {
-                rideAdapter.updateRides(rides);
+                rideAdapter.submitList(rides);
                 updateEmptyState(rides.isEmpty());
             }
         });
@@ -73,27 +86,13 @@ public class RideFragment extends Fragment implements RideAdapter.OnRideClickLis
 
     @Override
     public void onDeleteRide(Ride ride) {
+        // La liste et les statistiques suivent via les notifications du dépôt
         rideViewModel.deleteRide(ride);
-        // Rafraîchir les statistiques
-        refreshStatistics();
     }
 
     @Override
     public void onRideAdded(Ride ride) {
         rideViewModel.addRide(ride);
-        // Rafraîchir les statistiques
-        refreshStatistics();
-    }
-
-    private void refreshStatistics() {
-        try {
-            StatViewModel statViewModel = new ViewModelProvider(requireActivity(),
-                    new ViewModelProvider.AndroidViewModelFactory(requireActivity().getApplication()))
-                    .get(StatViewModel.class);
-            statViewModel.refreshStatistics();
-        } catch (Exception e) {
-            Log.w(TAG, "Could not refresh statistics", e);
-        }
     }
 
     @Override
@@ -0,0 +1,205 @@
+package com.driveup.ui.ride;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Fenêtre glissante de pages de courses affichées par la liste.
+ * Au plus {@link #MAX_PAGES} pages restent en mémoire : charger une page à une extrémité
+ * libère celle de l'extrémité opposée, qui sera relue depuis la base si l'utilisateur y revient.
+ */
+class RidePageWindow {
+
+    static final int PAGE_SIZE = 50;
+    static final int MAX_PAGES = 5;
+
+    // Ordre de la liste, identique à celui des requêtes de DataBaseHelper
+    static final Comparator<Ride> LIST_ORDER = Comparator.comparing(Ride::getDate)
+            .thenComparing(Ride::getStartHour)
+            .thenComparing(Ride::getId)
+            .reversed();
+
+    private final ArrayDeque<List<Ride>> pages = new ArrayDeque<>();
+    private boolean hasOlder;
+    private boolean hasNewer;
+    // Incrémentée à chaque remise à zéro : une page lue par rapport à une fenêtre antérieure ne s'y raccorde pas
+    private long generation;
+
+    void reset(List<Ride> firstPage) {
+        generation++;
+        pages.clear();
+        if (!firstPage.isEmpty()) {
+            pages.add(firstPage);
+        }
+        hasOlder = firstPage.size() == PAGE_SIZE;
+        hasNewer = false;
+    }
+
+    void appendOlder(List<Ride> page) {
+        hasOlder = page.size() == PAGE_SIZE;
+        if (page.isEmpty()) {
+            return;
+        }
+        pages.addLast(page);
+        if (pages.size() > MAX_PAGES) {
+            pages.removeFirst();
+            hasNewer = true;
+        }
+    }
+
+    void prependNewer(List<Ride> page) {
+        hasNewer = page.size() == PAGE_SIZE;
+        if (page.isEmpty()) {
+            return;
+        }
+        pages.addFirst(page);
+        if (pages.size() > MAX_PAGES) {
+            pages.removeLast();
+            hasOlder = true;
+        }
+    }
+
+    /**
+     * Place une course nouvellement enregistrée dans la fenêtre si sa position tombe dans la plage
+     * chargée ; sinon elle sera lue avec la page qui la contient.
+     *
+     * @return true si la fenêtre a changé
+     */
+    boolean insert(Ride ride) {
+        if (contains(ride.getId())) {
+            // Déjà lue par un rechargement fait après l'écriture
+            return false;
+        }
+        if (pages.isEmpty()) {
+            if (hasOlder || hasNewer) {
+                return false;
+            }
+            List<Ride> page = new ArrayList<>();
+            page.add(ride);
+            pages.add(page);
+            return true;
+        }
+        if (hasNewer && LIST_ORDER.compare(ride, newest()) < 0) {
+            return false;
+        }
+
+        for (List<Ride> page : pages) {
+            if (LIST_ORDER.compare(ride, page.get(page.size() - 1)) < 0) {
+                insertSorted(page, ride);
+                return true;
+            }
+        }
+        if (hasOlder) {
+            return false;
+        }
+        pages.peekLast().add(ride);
+        return true;
+    }
+
+    /**
+     * Import de courses datées de {@code from} à {@code to} : si la plage tombe entièrement au-delà d'une
+     * extrémité de la fenêtre qui sera de toute façon relue au défilement, la fenêtre reste juste.
+     * Sans effet sur la fenêtre : pour une plage plus ancienne, l'appelant signale les nouvelles pages
+     * avec {@link #markOlderAvailable()}.
+     *
+     * @return true si aucun rechargement n'est nécessaire
+     */
+    boolean skipsRange(LocalDate from, LocalDate to) {
+        if (pages.isEmpty()) {
+            return false;
+        }
+        return isBeforeWindow(to) || (hasNewer && from.isAfter(newest().getDate()));
+    }
+
+    /**
+     * @return true si {@code day} précède la plus ancienne course chargée
+     */
+    boolean isBeforeWindow(LocalDate day) {
+        return !pages.isEmpty() && day.isBefore(oldest().getDate());
+    }
+
+    /**
+     * Des courses ont été enregistrées après la fin de la fenêtre : le défilement doit aller les lire.
+     */
+    void markOlderAvailable() {
+        hasOlder = true;
+    }
+
+    private static void insertSorted(List<Ride> page, Ride ride) {
+        int index = Collections.binarySearch(page, ride, LIST_ORDER);
+        page.add(index < 0 ? -index - 1 : index, ride);
+    }
+
+    /**
+     * @return true si la course était dans la fenêtre
+     */
+    boolean remove(long rideId) {
+        Iterator<List<Ride>> pageIterator = pages.iterator();
+        while (pageIterator.hasNext()) {
+            List<Ride> page = pageIterator.next();
+            for (int i = 0; i < page.size(); i++) {
+                if (page.get(i).getId() == rideId) {
+                    page.remove(i);
+                    if (page.isEmpty()) {
+                        pageIterator.remove();
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean contains(long rideId) {
+        for (List<Ride> page : pages) {
+            for (Ride ride : page) {
+                if (ride.getId() == rideId) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    boolean isEmpty() {
+        return pages.isEmpty();
+    }
+
+    boolean hasOlder() {
+        return hasOlder;
+    }
+
+    boolean hasNewer() {
+        return hasNewer;
+    }
+
+    Ride oldest() {
+        List<Ride> last = pages.peekLast();
+        return last == null ? null : last.get(last.size() - 1);
+    }
+
+    Ride newest() {
+        List<Ride> first = pages.peekFirst();
+        return first == null ? null : first.get(0);
+    }
+
+    /**
+     * Copie à plat de la fenêtre, publiée telle quelle à l'adaptateur.
+     */
+    List<Ride> snapshot() {
+        List<Ride> rides = new ArrayList<>(pages.size() * PAGE_SIZE);
+        for (List<Ride> page : pages) {
+            rides.addAll(page);
+        }
+        return Collections.unmodifiableList(rides);
+    }
+}
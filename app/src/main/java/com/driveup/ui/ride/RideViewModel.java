@@ -8,22 +8,42 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
-import com.driveup.DataBaseHelper;
+import com.driveup.AppExecutors;
+import com.driveup.RefreshCoalescer;
+import com.driveup.RideChange;
+import com.driveup.RideRepository;
 
-import java.time.LocalDate;
-import java.time.LocalTime;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Toutes les lectures et écritures s'exécutent sur {@link AppExecutors#diskIO()}.
+ * La fenêtre de pages est modifiée sous son verrou et chaque nouvel état est publié par postValue.
+ * Les écritures, d'ici ou d'ailleurs, reviennent par {@link RideRepository.Listener} : un ajout ou une
+ * suppression ne touche que sa course dans la fenêtre, un import ne recharge la première page que s'il
+ * recoupe les dates affichées, une fois pour toute une rafale de lots.
+ */
 public class RideViewModel extends AndroidViewModel {
 
     private static final String TAG = "RideViewModel";
-    private DataBaseHelper dbHelper;
+    // Un import arrive par lots de 1 000 courses : une seule relecture de la première page par rafale
+    private static final long RELOAD_COALESCE_MS = 150;
+    private final RideRepository repository;
+    private final RideRepository.Listener changeListener = this::onRidesChanged;
+    private final Executor diskIO;
     private MutableLiveData<List<Ride>> ridesLiveData = new MutableLiveData<>();
     private MutableLiveData<Boolean> isLoading = new MutableLiveData<>();
+    private final RidePageWindow window = new RidePageWindow();
+    private final AtomicBoolean isPaging = new AtomicBoolean();
+    private final RefreshCoalescer reloadCoalescer = new RefreshCoalescer(this::loadRides, RELOAD_COALESCE_MS);
 
     public RideViewModel(@NonNull Application application) {
         super(application);
-        dbHelper = DataBaseHelper.getInstance(application);
+        repository = RideRepository.getInstance(application);
+        diskIO = AppExecutors.getInstance().diskIO();
+        repository.addListener(changeListener);
         loadRides();
     }
 
@@ -35,38 +55,181 @@ public class RideViewModel extends AndroidViewModel {
         return isLoading;
     }
 
+    /**
+     * Recharge la liste depuis le début : seule la première page est lue. Une remise à zéro de la fenêtre
+     * faite entre-temps l'emporte ; une écriture validée pendant la lecture fait relire la page, son
+     * changement ayant pu être appliqué à la fenêtre avant ce rechargement.
+     */
     public void loadRides() {
         isLoading.setValue(true);
-        try {
-            List<Ride> rides = dbHelper.getAllRides();
-            ridesLiveData.setValue(rides);
-        } catch (Exception e) {
-            Log.e(TAG, "Error loading rides", e);
-        } finally {
-            isLoading.setValue(false);
+        diskIO.execute(() -> {
+            try {
+                long generation;
+                synchronized (window) {
+                    generation = window.getGeneration();
+                }
+                while (true) {
+                    long dataVersion = repository.getDataVersion();
+                    List<Ride> firstPage = repository.getRidesBefore(null, RidePageWindow.PAGE_SIZE);
+                    synchronized (window) {
+                        if (window.getGeneration() != generation) {
+                            return;
+                        }
+                        if (repository.getDataVersion() == dataVersion) {
+                            window.reset(firstPage);
+                            ridesLiveData.postValue(window.snapshot());
+                            return;
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading rides", e);
+            } finally {
+                isLoading.postValue(false);
+            }
+        });
+    }
+
+    /**
+     * Charge la page suivante (plus ancienne) quand le défilement approche de la fin de la fenêtre.
+     */
+    public void loadOlderRides() {
+        if (!isPaging.compareAndSet(false, true)) {
+            return;
         }
+        diskIO.execute(() -> {
+            try {
+                Ride oldest;
+                long generation;
+                synchronized (window) {
+                    if (!window.hasOlder()) {
+                        return;
+                    }
+                    oldest = window.oldest();
+                    generation = window.getGeneration();
+                }
+                List<Ride> page = repository.getRidesBefore(oldest, RidePageWindow.PAGE_SIZE);
+                synchronized (window) {
+                    if (window.getGeneration() != generation) {
+                        // Fenêtre remise à zéro pendant la lecture : la page ne s'y raccorde plus
+                        return;
+                    }
+                    window.appendOlder(page);
+                    ridesLiveData.postValue(window.snapshot());
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading older rides", e);
+            } finally {
+                isPaging.set(false);
+            }
+        });
     }
 
-    public void addRide(Ride ride) {
-        try {
-            long id = dbHelper.insertRide(ride);
-            ride.setId(id);
-            loadRides(); // Refresh the list
-        } catch (Exception e) {
-            Log.e(TAG, "Error adding ride", e);
+    /**
+     * Recharge la page précédente (plus récente) libérée par la fenêtre quand l'utilisateur remonte.
+     */
+    public void loadNewerRides() {
+        if (!isPaging.compareAndSet(false, true)) {
+            return;
         }
+        diskIO.execute(() -> {
+            try {
+                Ride newest;
+                long generation;
+                synchronized (window) {
+                    if (!window.hasNewer()) {
+                        return;
+                    }
+                    newest = window.newest();
+                    generation = window.getGeneration();
+                }
+                List<Ride> page = repository.getRidesAfter(newest, RidePageWindow.PAGE_SIZE);
+                synchronized (window) {
+                    if (window.getGeneration() != generation) {
+                        // Fenêtre remise à zéro pendant la lecture : la page ne s'y raccorde plus
+                        return;
+                    }
+                    window.prependNewer(page);
+                    ridesLiveData.postValue(window.snapshot());
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading newer rides", e);
+            } finally {
+                isPaging.set(false);
+            }
+        });
+    }
+
+    public void addRide(Ride ride) {
+        diskIO.execute(() -> {
+            try {
+                repository.addRide(ride);
+            } catch (Exception e) {
+                Log.e(TAG, "Error adding ride", e);
+            }
+        });
     }
 
     public void deleteRide(Ride ride) {
-        try {
-            boolean deleted = dbHelper.deleteRide(ride.getId());
-            if (deleted) {
-                loadRides(); // Refresh the list
-            } else {
-                Log.w(TAG, "Failed to delete ride: " + ride.getId());
+        diskIO.execute(() -> {
+            try {
+                if (!repository.deleteRide(ride)) {
+                    Log.w(TAG, "Failed to delete ride: " + ride.getId());
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error deleting ride", e);
             }
-        } catch (Exception e) {
-            Log.e(TAG, "Error deleting ride", e);
+        });
+    }
+
+    /**
+     * Appelée sur le thread UI après chaque écriture enregistrée.
+     */
+    private void onRidesChanged(RideChange change) {
+        switch (change.getType()) {
+            case INSERT:
+                // Mise à jour locale de la fenêtre : une seule insertion à animer
+                synchronized (window) {
+                    if (window.insert(change.getRide())) {
+                        ridesLiveData.postValue(window.snapshot());
+                    }
+                }
+                break;
+            case DELETE:
+                boolean reload;
+                synchronized (window) {
+                    window.remove(change.getRide().getId());
+                    // Fenêtre vidée alors que la base a encore des courses, d'un côté ou de l'autre
+                    reload = window.isEmpty() && (window.hasOlder() || window.hasNewer());
+                    if (!reload) {
+                        ridesLiveData.postValue(window.snapshot());
+                    }
+                }
+                if (reload) {
+                    loadRides();
+                }
+                break;
+            case BULK_INSERT:
+                // Import entièrement hors de la fenêtre chargée : il sera lu au défilement
+                synchronized (window) {
+                    if (window.skipsRange(change.getFrom(), change.getTo())) {
+                        if (window.isBeforeWindow(change.getTo())) {
+                            window.markOlderAvailable();
+                        }
+                        break;
+                    }
+                }
+                reloadCoalescer.request();
+                break;
+            case WIPE:
+                synchronized (window) {
+                    window.reset(Collections.emptyList());
+                    ridesLiveData.postValue(window.snapshot());
+                }
+                break;
+            case SUMMARY_REBUILD:
+                // Courses inchangées
+                break;
         }
     }
 
@@ -74,4 +237,11 @@ public class RideViewModel extends AndroidViewModel {
         loadRides();
     }
 
-}
\ No newline at end of file
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        repository.removeListener(changeListener);
+        reloadCoalescer.cancel();
+    }
+
+}
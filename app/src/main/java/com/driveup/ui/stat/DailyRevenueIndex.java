@@ -0,0 +1,259 @@
+package com.driveup.ui.stat;
+
+import java.util.Arrays;
+
+/**
+ * Totaux journaliers (revenus en centimes, nombre de courses, minutes de conduite) indexés par jour epoch,
+ * avec leurs sommes cumulées : le total d'une plage de dates quelconque est une différence de deux cumuls.
+ * <p>
+ * Une mise à jour ne touche que le total de son jour et invalide les cumuls à partir de ce jour ; ils sont
+ * recalculés à la requête suivante, depuis le premier jour modifié seulement. Les courses récentes étant
+ * en fin de tableau, ce recalcul reste court dans l'usage courant.
+ * <p>
+ * Les sommes glissantes sur {@link #SHORT_WINDOW} et {@link #LONG_WINDOW} jours se terminant à chaque jour
+ * sont tenues à part : une mise à jour n'ajuste que les fenêtres qui contiennent son jour, et une
+ * reconstruction les recalcule en un seul passage glissant sur les jours, indépendamment du nombre de courses.
+ * <p>
+ * Non synchronisé : l'appelant ({@link StatAggregateStore}) sérialise les accès.
+ */
+class DailyRevenueIndex {
+
+    static final int SHORT_WINDOW = 7;
+    static final int LONG_WINDOW = 30;
+
+    private static final int INITIAL_CAPACITY = 366;
+    private static final int MIN_FRONT_MARGIN = 31;
+
+    private long firstDay;
+    private int span;
+    private int[] counts;
+    private long[] cents;
+    private long[] minutes;
+    // prefix[i] = somme des jours d'indice < i ; valides jusqu'à dirtyFrom inclus
+    private int[] prefixCounts;
+    private long[] prefixCents;
+    private long[] prefixMinutes;
+    private int dirtyFrom;
+    // Sommes des fenêtres se terminant à chaque jour ; recalculées d'un bloc après un vidage
+    private int[] shortWindowCounts;
+    private long[] shortWindowCents;
+    private int[] longWindowCounts;
+    private long[] longWindowCents;
+    private boolean windowsValid;
+
+    DailyRevenueIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    void clear() {
+        Arrays.fill(counts, 0);
+        Arrays.fill(cents, 0);
+        Arrays.fill(minutes, 0);
+        span = 0;
+        dirtyFrom = 0;
+        windowsValid = false;
+    }
+
+    /**
+     * Vide les jours de {@code fromDay} à {@code toDay} inclus ; cumuls et fenêtres sont recalculés à la demande.
+     */
+    void clear(long fromDay, long toDay) {
+        int from = clampFrom(fromDay);
+        int to = clampTo(toDay);
+        if (from > to) {
+            return;
+        }
+        Arrays.fill(counts, from, to + 1, 0);
+        Arrays.fill(cents, from, to + 1, 0);
+        Arrays.fill(minutes, from, to + 1, 0);
+        dirtyFrom = Math.min(dirtyFrom, from);
+        windowsValid = false;
+    }
+
+    void add(long epochDay, long rideCents, int rideMinutes, int sign) {
+        int index = indexOf(epochDay);
+        counts[index] += sign;
+        cents[index] += sign * rideCents;
+        minutes[index] += (long) sign * rideMinutes;
+        dirtyFrom = Math.min(dirtyFrom, index);
+        if (windowsValid) {
+            adjustWindows(shortWindowCounts, shortWindowCents, SHORT_WINDOW, index, sign, rideCents);
+            adjustWindows(longWindowCounts, longWindowCents, LONG_WINDOW, index, sign, rideCents);
+        }
+    }
+
+    private void adjustWindows(int[] windowCounts, long[] windowCents, int window, int index, int sign, long rideCents) {
+        int last = Math.min(index + window, span);
+        for (int i = index; i < last; i++) {
+            windowCounts[i] += sign;
+            windowCents[i] += sign * rideCents;
+        }
+    }
+
+    /**
+     * Nombre de courses des {@code window} jours se terminant à {@code epochDay} inclus.
+     */
+    int windowRideCount(long epochDay, int window) {
+        long index = epochDay - firstDay;
+        if (index < 0 || index >= span) {
+            return rideCount(epochDay - window + 1, epochDay);
+        }
+        ensureWindows();
+        return (window == SHORT_WINDOW ? shortWindowCounts : longWindowCounts)[(int) index];
+    }
+
+    /**
+     * Revenus en centimes des {@code window} jours se terminant à {@code epochDay} inclus.
+     */
+    long windowCents(long epochDay, int window) {
+        long index = epochDay - firstDay;
+        if (index < 0 || index >= span) {
+            return cents(epochDay - window + 1, epochDay);
+        }
+        ensureWindows();
+        return (window == SHORT_WINDOW ? shortWindowCents : longWindowCents)[(int) index];
+    }
+
+    private void ensureWindows() {
+        if (!windowsValid) {
+            fillWindows(0);
+            windowsValid = true;
+        }
+    }
+
+    private void fillWindows(int from) {
+        fillWindow(shortWindowCounts, shortWindowCents, SHORT_WINDOW, from);
+        fillWindow(longWindowCounts, longWindowCents, LONG_WINDOW, from);
+    }
+
+    /**
+     * Passage glissant : chaque jour ajoute sa valeur et retire celle du jour sorti de la fenêtre.
+     */
+    private void fillWindow(int[] windowCounts, long[] windowCents, int window, int from) {
+        int sumCounts = 0;
+        long sumCents = 0;
+        for (int i = Math.max(0, from - window); i < from; i++) {
+            sumCounts += counts[i];
+            sumCents += cents[i];
+        }
+        for (int i = from; i < span; i++) {
+            sumCounts += counts[i];
+            sumCents += cents[i];
+            if (i >= window) {
+                sumCounts -= counts[i - window];
+                sumCents -= cents[i - window];
+            }
+            windowCounts[i] = sumCounts;
+            windowCents[i] = sumCents;
+        }
+    }
+
+    int rideCount(long fromDay, long toDay) {
+        int from = clampFrom(fromDay);
+        int to = clampTo(toDay);
+        if (from > to) {
+            return 0;
+        }
+        ensurePrefix(to + 1);
+        return prefixCounts[to + 1] - prefixCounts[from];
+    }
+
+    long cents(long fromDay, long toDay) {
+        int from = clampFrom(fromDay);
+        int to = clampTo(toDay);
+        if (from > to) {
+            return 0;
+        }
+        ensurePrefix(to + 1);
+        return prefixCents[to + 1] - prefixCents[from];
+    }
+
+    long minutes(long fromDay, long toDay) {
+        int from = clampFrom(fromDay);
+        int to = clampTo(toDay);
+        if (from > to) {
+            return 0;
+        }
+        ensurePrefix(to + 1);
+        return prefixMinutes[to + 1] - prefixMinutes[from];
+    }
+
+    private int clampFrom(long fromDay) {
+        return (int) Math.max(0, fromDay - firstDay);
+    }
+
+    private int clampTo(long toDay) {
+        return (int) Math.min(span - 1L, toDay - firstDay);
+    }
+
+    private void ensurePrefix(int upTo) {
+        for (int i = dirtyFrom; i < upTo; i++) {
+            prefixCounts[i + 1] = prefixCounts[i] + counts[i];
+            prefixCents[i + 1] = prefixCents[i] + cents[i];
+            prefixMinutes[i + 1] = prefixMinutes[i] + minutes[i];
+        }
+        dirtyFrom = Math.max(dirtyFrom, upTo);
+    }
+
+    private int indexOf(long epochDay) {
+        if (span == 0) {
+            firstDay = epochDay;
+            span = 1;
+            return 0;
+        }
+        if (epochDay < firstDay) {
+            // Marge devant la plage, comme pour les mois de StatAggregateStore
+            int shift = (int) Math.max(firstDay - epochDay, Math.max(span, MIN_FRONT_MARGIN));
+            resize(Math.max(counts.length, span + shift), shift);
+            firstDay -= shift;
+            span += shift;
+            dirtyFrom = 0;
+            return (int) (epochDay - firstDay);
+        }
+        long index = epochDay - firstDay;
+        if (index >= span) {
+            if (index >= counts.length) {
+                resize((int) Math.max(counts.length * 2L, index + 1), 0);
+            }
+            int oldSpan = span;
+            span = (int) index + 1;
+            if (windowsValid) {
+                fillWindows(oldSpan);
+            }
+        }
+        return (int) index;
+    }
+
+    private void allocate(int capacity) {
+        counts = new int[capacity];
+        cents = new long[capacity];
+        minutes = new long[capacity];
+        prefixCounts = new int[capacity + 1];
+        prefixCents = new long[capacity + 1];
+        prefixMinutes = new long[capacity + 1];
+        shortWindowCounts = new int[capacity];
+        shortWindowCents = new long[capacity];
+        longWindowCounts = new int[capacity];
+        longWindowCents = new long[capacity];
+    }
+
+    private void resize(int capacity, int shift) {
+        int[] oldCounts = counts;
+        long[] oldCents = cents;
+        long[] oldMinutes = minutes;
+        int[] oldShortWindowCounts = shortWindowCounts;
+        long[] oldShortWindowCents = shortWindowCents;
+        int[] oldLongWindowCounts = longWindowCounts;
+        long[] oldLongWindowCents = longWindowCents;
+        allocate(capacity);
+        System.arraycopy(oldCounts, 0, counts, shift, span);
+        System.arraycopy(oldCents, 0, cents, shift, span);
+        System.arraycopy(oldMinutes, 0, minutes, shift, span);
+        // Les jours ajoutés devant sont vides : les fenêtres existantes restent justes une fois décalées
+        System.arraycopy(oldShortWindowCounts, 0, shortWindowCounts, shift, span);
+        System.arraycopy(oldShortWindowCents, 0, shortWindowCents, shift, span);
+        System.arraycopy(oldLongWindowCounts, 0, longWindowCounts, shift, span);
+        System.arraycopy(oldLongWindowCents, 0, longWindowCents, shift, span);
+        dirtyFrom = 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.driveup.ui.stat;
+
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DistributionStats {
+    private Map<String, Distribution> statsByMonth; // Format: "YYYY-MM" -> Distribution
+    private Map<Integer, Distribution> statsByYear; // Format: Year -> Distribution
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Distribution {
+        private int rideCount;
+        private double medianPrice;
+        private double p90Price;
+        private double p99Price;
+        private double medianDurationMinutes;
+        private double p90DurationMinutes;
+        private double p99DurationMinutes;
+    }
+}
@@ -0,0 +1,22 @@
+package com.driveup.ui.stat;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HeatmapStats {
+    public static final int HOURS_PER_DAY = 24;
+    public static final int DAYS_PER_WEEK = 7;
+    public static final int CELL_COUNT = DAYS_PER_WEEK * HOURS_PER_DAY;
+
+    private List<String> periods; // "YYYY-MM" puis "YYYY", du plus ancien au plus récent
+    private String period; // Période affichée
+    private int[] rideCounts; // Index: jour * 24 + heure (lundi = 0), courses en cours pendant l'heure
+    private double[] amounts; // Même index, revenus répartis au prorata des minutes
+    private double maxAmount;
+}
@@ -0,0 +1,98 @@
+package com.driveup.ui.stat;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+import androidx.core.graphics.ColorUtils;
+
+import com.driveup.R;
+
+/**
+ * Grille 7 × 24 des revenus par jour de la semaine et par heure, plus la case est foncée plus
+ * l'heure a rapporté. Le dessin ne fait aucune allocation : les données sont lues telles quelles
+ * dans les tableaux de {@link HeatmapStats}.
+ */
+public class HeatmapView extends View {
+
+    private static final String[] DAY_LABELS = {"L", "M", "M", "J", "V", "S", "D"};
+    private static final String[] HOUR_LABELS = {"0h", "6h", "12h", "18h"};
+    private static final int HOUR_LABEL_STEP = 6;
+    private static final float CELL_GAP_DP = 1.5f;
+    private static final float LABEL_TEXT_SP = 10f;
+    private static final float CELL_HEIGHT_DP = 22f;
+
+    private final Paint cellPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final int emptyColor = Color.parseColor("#F3F0F7");
+    private final int fullColor;
+    private final float cellGap;
+    private final float labelWidth;
+    private final float labelHeight;
+    private final float cellHeight;
+
+    @Nullable
+    private HeatmapStats heatmap;
+
+    public HeatmapView(Context context) {
+        this(context, null);
+    }
+
+    public HeatmapView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        float scaledDensity = getResources().getDisplayMetrics().scaledDensity;
+        fullColor = ContextCompat.getColor(context, R.color.purple_500);
+        cellGap = CELL_GAP_DP * density;
+        cellHeight = CELL_HEIGHT_DP * density;
+        labelPaint.setColor(Color.DKGRAY);
+        labelPaint.setTextSize(LABEL_TEXT_SP * scaledDensity);
+        labelWidth = labelPaint.measureText("M") * 2;
+        labelHeight = labelPaint.getFontSpacing();
+    }
+
+    public void setHeatmap(@Nullable HeatmapStats heatmap) {
+        this.heatmap = heatmap;
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        int height = (int) (getPaddingTop() + getPaddingBottom()
+                + HeatmapStats.DAYS_PER_WEEK * cellHeight + labelHeight);
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        float left = getPaddingLeft() + labelWidth;
+        float top = getPaddingTop();
+        float cellWidth = (getWidth() - getPaddingRight() - left) / HeatmapStats.HOURS_PER_DAY;
+        float rowHeight = (getHeight() - getPaddingBottom() - top - labelHeight) / HeatmapStats.DAYS_PER_WEEK;
+        double maxAmount = heatmap == null ? 0 : heatmap.getMaxAmount();
+
+        for (int day = 0; day < HeatmapStats.DAYS_PER_WEEK; day++) {
+            float y = top + day * rowHeight;
+            canvas.drawText(DAY_LABELS[day], getPaddingLeft(), y + rowHeight * 0.7f, labelPaint);
+            for (int hour = 0; hour < HeatmapStats.HOURS_PER_DAY; hour++) {
+                int cell = day * HeatmapStats.HOURS_PER_DAY + hour;
+                float ratio = maxAmount > 0 ? (float) (heatmap.getAmounts()[cell] / maxAmount) : 0f;
+                cellPaint.setColor(ColorUtils.blendARGB(emptyColor, fullColor, ratio));
+                float x = left + hour * cellWidth;
+                canvas.drawRect(x, y, x + cellWidth - cellGap, y + rowHeight - cellGap, cellPaint);
+            }
+        }
+
+        float labelBaseline = top + HeatmapStats.DAYS_PER_WEEK * rowHeight + labelHeight * 0.8f;
+        for (int i = 0; i < HOUR_LABELS.length; i++) {
+            canvas.drawText(HOUR_LABELS[i], left + i * HOUR_LABEL_STEP * cellWidth, labelBaseline, labelPaint);
+        }
+    }
+}
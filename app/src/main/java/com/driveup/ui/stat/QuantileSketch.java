@@ -0,0 +1,82 @@
+package com.driveup.ui.stat;
+
+/**
+ * Esquisse de quantiles à erreur relative bornée, sur le principe de DDSketch : une valeur positive est
+ * comptée dans le seuil logarithmique {@code ceil(log(v) / log(gamma))}, et tout quantile est restitué à
+ * {@link #relativeAccuracy} près.
+ * <p>
+ * Cette classe ne décrit que le découpage ; les compteurs sont des lignes de {@link #getBucketCount()}
+ * entiers rangées par l'appelant dans ses propres tableaux. Une esquisse occupe donc une place fixe quel
+ * que soit le nombre de courses, deux esquisses se fusionnent en additionnant leurs lignes et une course
+ * supprimée se retire en décrémentant son seuil.
+ */
+final class QuantileSketch {
+
+    /**
+     * Prix en centimes, de 1 centime à 10 000 € (au-delà, la valeur est comptée dans le dernier seuil).
+     */
+    static final QuantileSketch PRICE_CENTS = new QuantileSketch(0.02, 1_000_000);
+
+    /**
+     * Durées en minutes, jusqu'à 24 heures.
+     */
+    static final QuantileSketch DURATION_MINUTES = new QuantileSketch(0.02, 24 * 60);
+
+    private final double gamma;
+    private final double logGamma;
+    // Seuil 0 réservé aux valeurs nulles ou négatives, seuils 1..n aux valeurs de 1 à maxValue
+    private final int bucketCount;
+
+    QuantileSketch(double relativeAccuracy, long maxValue) {
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.bucketCount = 2 + (int) Math.ceil(Math.log(maxValue) / logGamma);
+    }
+
+    int getBucketCount() {
+        return bucketCount;
+    }
+
+    int bucketOf(long value) {
+        if (value <= 0) {
+            return 0;
+        }
+        int bucket = 1 + (int) Math.ceil(Math.log(value) / logGamma);
+        return Math.min(bucket, bucketCount - 1);
+    }
+
+    /**
+     * Quantile {@code q} (entre 0 et 1) de la ligne {@code counts[offset .. offset + bucketCount[}.
+     *
+     * @return la valeur représentative du seuil atteint, 0 si la ligne est vide
+     */
+    double quantile(int[] counts, int offset, double q) {
+        long total = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            total += counts[offset + bucket];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.floor(q * (total - 1));
+        long seen = 0;
+        for (int bucket = 0; bucket < bucketCount; bucket++) {
+            seen += counts[offset + bucket];
+            if (seen > rank) {
+                return valueOf(bucket);
+            }
+        }
+        return valueOf(bucketCount - 1);
+    }
+
+    /**
+     * Milieu (au sens de l'erreur relative) de l'intervalle ]gamma^(i-2), gamma^(i-1)] que {@link #bucketOf}
+     * range dans le seuil {@code i} (i >= 1).
+     */
+    private double valueOf(int bucket) {
+        if (bucket == 0) {
+            return 0;
+        }
+        return 2 * Math.pow(gamma, bucket - 1) / (gamma + 1);
+    }
+}
@@ -0,0 +1,18 @@
+package com.driveup.ui.stat;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RangeStats {
+    private LocalDate from; // Inclus
+    private LocalDate to; // Inclus
+    private int rideCount;
+    private double totalAmount;
+    private long drivenMinutes;
+}
@@ -0,0 +1,622 @@
+package com.driveup.ui.stat;
+
+import com.driveup.RideEncoding;
+import com.driveup.RideStatsSnapshot;
+import com.driveup.ui.ride.Ride;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Agrégats des statistiques maintenus par deltas : l'ajout ou la suppression d'une course ne touche
+ * que les compteurs de son mois, de son jour de la semaine et de sa plage horaire.
+ * Une reconstruction complète n'a lieu qu'au chargement ou après une écriture manquée ; un import ne fait
+ * recalculer que les mois qu'il touche.
+ * <p>
+ * Les compteurs sont des tableaux à plat indexés par [mois][jour], [mois][plage] et [mois][jour × heure]
+ * pour la carte de chaleur, le mois étant compté depuis le premier mois couvert ; les vues annuelles
+ * sont dérivées des mois à la lecture. Chaque mois a aussi ses esquisses de prix et de durée
+ * ({@link QuantileSketch}), fusionnées par année de la même façon. Les totaux par jour alimentent {@link DailyRevenueIndex}
+ * pour les plages de dates libres.
+ * <p>
+ * Chaque état est associé à la version des données qu'il reflète ; un delta n'est appliqué que s'il
+ * suit exactement cette version, sinon l'appelant doit reconstruire.
+ */
+class StatAggregateStore {
+
+    static final long NO_VERSION = -1;
+
+    private static final Locale FRENCH_LOCALE = Locale.FRENCH;
+    private static final int DAYS_PER_WEEK = 7;
+    private static final int MONTHS_PER_YEAR = 12;
+    private static final int INITIAL_MONTH_CAPACITY = 2 * MONTHS_PER_YEAR;
+    private static final int MINUTES_PER_HOUR = 60;
+    private static final int HEAT_CELLS = HeatmapStats.CELL_COUNT;
+    static final int TREND_DAYS = 90;
+    private static final QuantileSketch PRICE_SKETCH = QuantileSketch.PRICE_CENTS;
+    private static final QuantileSketch DURATION_SKETCH = QuantileSketch.DURATION_MINUTES;
+    private static final int PRICE_BUCKETS = PRICE_SKETCH.getBucketCount();
+    private static final int DURATION_BUCKETS = DURATION_SKETCH.getBucketCount();
+
+    private TimeSlotClassifier classifier;
+    private int slotCount;
+    // Premier mois couvert, en mois absolus (année * 12 + mois - 1)
+    private int firstMonth;
+    private int monthSpan;
+    private int monthCapacity;
+    private int[] monthRideCounts;
+    private int[] dayCounts;
+    private long[] dayCents;
+    private int[] slotCounts;
+    private long[] slotCents;
+    private int[] heatCounts;
+    private long[] heatCents;
+    private int[] priceSketches;
+    private int[] durationSketches;
+    private final DailyRevenueIndex daily = new DailyRevenueIndex();
+    private int totalRides;
+    private long totalCents;
+    private volatile long version = NO_VERSION;
+
+    StatAggregateStore(TimeSlotClassifier classifier) {
+        this.classifier = classifier;
+        this.slotCount = classifier.getSlotCount();
+        allocate(INITIAL_MONTH_CAPACITY);
+    }
+
+    long getVersion() {
+        return version;
+    }
+
+    synchronized TimeSlotClassifier getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * Change le découpage des plages horaires ; l'état est vidé et devra être reconstruit.
+     */
+    synchronized void setClassifier(TimeSlotClassifier classifier) {
+        this.classifier = classifier;
+        this.slotCount = classifier.getSlotCount();
+        allocate(monthCapacity);
+        clear();
+        version = NO_VERSION;
+    }
+
+    /**
+     * Reconstruction depuis un instantané de la base : les groupes mois × jour et les totaux arrivent
+     * déjà agrégés par SQLite, seules les colonnes par course alimentent le reste des compteurs.
+     */
+    synchronized void rebuild(RideStatsSnapshot snapshot) {
+        if (snapshot.getVersion() < version) {
+            // Instantané dépassé par des deltas déjà appliqués
+            return;
+        }
+        clear();
+        addSnapshot(snapshot);
+        version = snapshot.getVersion();
+    }
+
+    /**
+     * Remplace les mois absolus {@code fromMonth} à {@code toMonth} par leur contenu dans {@code snapshot},
+     * instantané restreint à ces mois. Toutes les écritures qui suivent {@code baseVersion}, jusqu'à celle
+     * de l'instantané, doivent se limiter à ces mois : plusieurs lots d'un même import se remplacent ainsi
+     * en une seule lecture.
+     *
+     * @return false si l'état courant n'est pas celui de {@code baseVersion} : il faut tout reconstruire
+     */
+    synchronized boolean replaceMonths(RideStatsSnapshot snapshot, int fromMonth, int toMonth, long baseVersion) {
+        if (snapshot.getVersion() <= version) {
+            return true;
+        }
+        if (version != baseVersion) {
+            return false;
+        }
+        clearMonths(fromMonth, toMonth);
+        addSnapshot(snapshot);
+        version = snapshot.getVersion();
+        return true;
+    }
+
+    /**
+     * Suppression de toutes les courses par l'écriture de version {@code dataVersion} : rien à relire.
+     *
+     * @return false si une écriture a été manquée entre-temps
+     */
+    synchronized boolean wipe(long dataVersion) {
+        if (dataVersion <= version) {
+            return true;
+        }
+        if (dataVersion != version + 1) {
+            return false;
+        }
+        clear();
+        version = dataVersion;
+        return true;
+    }
+
+    /**
+     * Ajoute un instantané aux compteurs : les groupes mois × jour et les totaux arrivent
+     * déjà agrégés par SQLite, seules les colonnes par course alimentent le reste des compteurs.
+     */
+    private void addSnapshot(RideStatsSnapshot snapshot) {
+        int[] groupMonths = snapshot.getGroupMonths();
+        int[] groupWeekdays = snapshot.getGroupWeekdays();
+        int[] groupRideCounts = snapshot.getGroupRideCounts();
+        long[] groupCents = snapshot.getGroupCents();
+        for (int i = 0; i < groupMonths.length; i++) {
+            addToMonth(monthIndex(groupMonths[i]), groupWeekdays[i], groupRideCounts[i], groupCents[i]);
+        }
+        totalRides += snapshot.getTotalRides();
+        totalCents += snapshot.getTotalCents();
+
+        long[] epochDays = snapshot.getEpochDays();
+        int[] startMinutes = snapshot.getStartMinutes();
+        int[] endMinutes = snapshot.getEndMinutes();
+        long[] priceCents = snapshot.getPriceCents();
+        // Les lignes sont triées par date : le mois n'est recalculé qu'au changement de jour
+        long currentDay = Long.MIN_VALUE;
+        int absoluteMonth = 0;
+        int day = 0;
+        for (int i = 0; i < epochDays.length; i++) {
+            if (epochDays[i] != currentDay) {
+                currentDay = epochDays[i];
+                absoluteMonth = RideEncoding.toAbsoluteMonth(currentDay);
+                day = RideEncoding.toWeekdayIndex(currentDay);
+            }
+            addRideDetail(monthIndex(absoluteMonth), day, currentDay, startMinutes[i], endMinutes[i],
+                    priceCents[i], 1);
+        }
+    }
+
+    /**
+     * Applique l'ajout ({@code sign = 1}) ou la suppression ({@code sign = -1}) d'une course
+     * produite par l'écriture de version {@code dataVersion}.
+     *
+     * @return false si le delta ne peut pas être appliqué et qu'une reconstruction est nécessaire
+     */
+    synchronized boolean apply(Ride ride, int sign, long dataVersion) {
+        if (dataVersion <= version) {
+            // Écriture déjà incluse dans l'état courant (reconstruction plus récente)
+            return true;
+        }
+        if (dataVersion != version + 1) {
+            return false;
+        }
+        long epochDay = RideEncoding.toEpochDay(ride.getDate());
+        long cents = RideEncoding.toCents(ride.getPrice());
+        int month = monthIndex(RideEncoding.toAbsoluteMonth(epochDay));
+        int day = RideEncoding.toWeekdayIndex(epochDay);
+        addToMonth(month, day, sign, sign * cents);
+        totalRides += sign;
+        totalCents += sign * cents;
+        addRideDetail(month, day, epochDay, RideEncoding.toMinuteOfDay(ride.getStartHour()),
+                RideEncoding.toMinuteOfDay(ride.getEndHour()), cents, sign);
+        version = dataVersion;
+        return true;
+    }
+
+    private void addToMonth(int month, int day, int rides, long cents) {
+        int dayCell = month * DAYS_PER_WEEK + day;
+        monthRideCounts[month] += rides;
+        dayCounts[dayCell] += rides;
+        dayCents[dayCell] += cents;
+    }
+
+    /**
+     * Compteurs qui ont besoin du détail de la course : plage horaire, carte de chaleur,
+     * index journalier et esquisses de quantiles.
+     */
+    private void addRideDetail(int month, int day, long epochDay, int startMinute, int endMinute,
+                               long cents, int sign) {
+        int slotCell = month * slotCount + classifier.classify(startMinute, endMinute);
+        slotCounts[slotCell] += sign;
+        slotCents[slotCell] += sign * cents;
+        spreadOverHours(month * HEAT_CELLS, day, startMinute, endMinute, cents, sign);
+        int duration = durationMinutes(startMinute, endMinute);
+        daily.add(epochDay, cents, duration, sign);
+        priceSketches[month * PRICE_BUCKETS + PRICE_SKETCH.bucketOf(cents)] += sign;
+        durationSketches[month * DURATION_BUCKETS + DURATION_SKETCH.bucketOf(duration)] += sign;
+    }
+
+    private static int durationMinutes(int startMinute, int endMinute) {
+        int duration = endMinute - startMinute;
+        return duration > 0 ? duration : duration + RideEncoding.MINUTES_PER_DAY;
+    }
+
+    /**
+     * Répartit une course sur les cases heure de la carte de chaleur : chaque heure touchée compte la course,
+     * et reçoit une part du prix proportionnelle aux minutes qui y sont passées. Le reste des arrondis va à
+     * la dernière heure, pour que l'ajout puis la suppression d'une course s'annulent exactement.
+     * Après minuit, les heures sont comptées sur le jour suivant.
+     */
+    private void spreadOverHours(int row, int day, int startMinute, int endMinute, long cents, int sign) {
+        int duration = durationMinutes(startMinute, endMinute);
+        endMinute = startMinute + duration;
+        long remainingCents = cents;
+        int minute = startMinute;
+        while (minute < endMinute) {
+            int hourEnd = Math.min((minute / MINUTES_PER_HOUR + 1) * MINUTES_PER_HOUR, endMinute);
+            int cellDay = (day + minute / RideEncoding.MINUTES_PER_DAY) % DAYS_PER_WEEK;
+            int hour = (minute / MINUTES_PER_HOUR) % HeatmapStats.HOURS_PER_DAY;
+            int cell = row + cellDay * HeatmapStats.HOURS_PER_DAY + hour;
+            long share = hourEnd == endMinute ? remainingCents : cents * (hourEnd - minute) / duration;
+            remainingCents -= share;
+            heatCounts[cell] += sign;
+            heatCents[cell] += sign * share;
+            minute = hourEnd;
+        }
+    }
+
+    /**
+     * Indice de ligne d'un mois absolu, en étendant la plage couverte si nécessaire.
+     */
+    private int monthIndex(int absoluteMonth) {
+        if (monthSpan == 0) {
+            firstMonth = absoluteMonth;
+            monthSpan = 1;
+            return 0;
+        }
+        if (absoluteMonth < firstMonth) {
+            // Marge devant la plage : une reconstruction parcourt les courses de la plus récente
+            // à la plus ancienne, chaque décalage doit donc couvrir les mois suivants
+            int shift = Math.max(firstMonth - absoluteMonth, Math.max(monthSpan, MONTHS_PER_YEAR));
+            resize(Math.max(monthCapacity, monthSpan + shift), shift);
+            firstMonth -= shift;
+            monthSpan += shift;
+            return absoluteMonth - firstMonth;
+        }
+        int index = absoluteMonth - firstMonth;
+        if (index >= monthSpan) {
+            if (index >= monthCapacity) {
+                resize(Math.max(monthCapacity * 2, index + 1), 0);
+            }
+            monthSpan = index + 1;
+        }
+        return index;
+    }
+
+    private void allocate(int capacity) {
+        monthCapacity = capacity;
+        monthRideCounts = new int[capacity];
+        dayCounts = new int[capacity * DAYS_PER_WEEK];
+        dayCents = new long[capacity * DAYS_PER_WEEK];
+        slotCounts = new int[capacity * slotCount];
+        slotCents = new long[capacity * slotCount];
+        heatCounts = new int[capacity * HEAT_CELLS];
+        heatCents = new long[capacity * HEAT_CELLS];
+        priceSketches = new int[capacity * PRICE_BUCKETS];
+        durationSketches = new int[capacity * DURATION_BUCKETS];
+    }
+
+    /**
+     * Agrandit les tableaux et décale les lignes existantes de {@code shift} mois vers le bas.
+     */
+    private void resize(int capacity, int shift) {
+        int[] oldMonthRideCounts = monthRideCounts;
+        int[] oldDayCounts = dayCounts;
+        long[] oldDayCents = dayCents;
+        int[] oldSlotCounts = slotCounts;
+        long[] oldSlotCents = slotCents;
+        int[] oldHeatCounts = heatCounts;
+        long[] oldHeatCents = heatCents;
+        int[] oldPriceSketches = priceSketches;
+        int[] oldDurationSketches = durationSketches;
+        allocate(capacity);
+        System.arraycopy(oldMonthRideCounts, 0, monthRideCounts, shift, monthSpan);
+        System.arraycopy(oldDayCounts, 0, dayCounts, shift * DAYS_PER_WEEK, monthSpan * DAYS_PER_WEEK);
+        System.arraycopy(oldDayCents, 0, dayCents, shift * DAYS_PER_WEEK, monthSpan * DAYS_PER_WEEK);
+        System.arraycopy(oldSlotCounts, 0, slotCounts, shift * slotCount, monthSpan * slotCount);
+        System.arraycopy(oldSlotCents, 0, slotCents, shift * slotCount, monthSpan * slotCount);
+        System.arraycopy(oldHeatCounts, 0, heatCounts, shift * HEAT_CELLS, monthSpan * HEAT_CELLS);
+        System.arraycopy(oldHeatCents, 0, heatCents, shift * HEAT_CELLS, monthSpan * HEAT_CELLS);
+        System.arraycopy(oldPriceSketches, 0, priceSketches, shift * PRICE_BUCKETS, monthSpan * PRICE_BUCKETS);
+        System.arraycopy(oldDurationSketches, 0, durationSketches, shift * DURATION_BUCKETS,
+                monthSpan * DURATION_BUCKETS);
+    }
+
+    /**
+     * Vide les lignes des mois absolus {@code fromMonth} à {@code toMonth} et retire leurs courses des totaux.
+     */
+    private void clearMonths(int fromMonth, int toMonth) {
+        int from = Math.max(0, fromMonth - firstMonth);
+        int to = Math.min(monthSpan - 1, toMonth - firstMonth);
+        for (int month = from; month <= to; month++) {
+            totalRides -= monthRideCounts[month];
+            for (int day = 0; day < DAYS_PER_WEEK; day++) {
+                totalCents -= dayCents[month * DAYS_PER_WEEK + day];
+            }
+        }
+        if (from <= to) {
+            int months = to - from + 1;
+            Arrays.fill(monthRideCounts, from, to + 1, 0);
+            Arrays.fill(dayCounts, from * DAYS_PER_WEEK, (from + months) * DAYS_PER_WEEK, 0);
+            Arrays.fill(dayCents, from * DAYS_PER_WEEK, (from + months) * DAYS_PER_WEEK, 0);
+            Arrays.fill(slotCounts, from * slotCount, (from + months) * slotCount, 0);
+            Arrays.fill(slotCents, from * slotCount, (from + months) * slotCount, 0);
+            Arrays.fill(heatCounts, from * HEAT_CELLS, (from + months) * HEAT_CELLS, 0);
+            Arrays.fill(heatCents, from * HEAT_CELLS, (from + months) * HEAT_CELLS, 0);
+            Arrays.fill(priceSketches, from * PRICE_BUCKETS, (from + months) * PRICE_BUCKETS, 0);
+            Arrays.fill(durationSketches, from * DURATION_BUCKETS, (from + months) * DURATION_BUCKETS, 0);
+        }
+        daily.clear(firstDayOfMonth(fromMonth), firstDayOfMonth(toMonth + 1) - 1);
+    }
+
+    private static long firstDayOfMonth(int absoluteMonth) {
+        return LocalDate.of(absoluteMonth / MONTHS_PER_YEAR, absoluteMonth % MONTHS_PER_YEAR + 1, 1).toEpochDay();
+    }
+
+    private void clear() {
+        Arrays.fill(monthRideCounts, 0);
+        Arrays.fill(dayCounts, 0);
+        Arrays.fill(dayCents, 0);
+        Arrays.fill(slotCounts, 0);
+        Arrays.fill(slotCents, 0);
+        Arrays.fill(heatCounts, 0);
+        Arrays.fill(heatCents, 0);
+        Arrays.fill(priceSketches, 0);
+        Arrays.fill(durationSketches, 0);
+        monthSpan = 0;
+        totalRides = 0;
+        totalCents = 0;
+        daily.clear();
+    }
+
+    synchronized TotalStats totalStats() {
+        return new TotalStats(totalRides, RideEncoding.fromCents(totalCents));
+    }
+
+    synchronized DayOfWeekStats dayOfWeekStats() {
+        Map<String, List<DayOfWeekStats.DayStats>> statsByMonth = new LinkedHashMap<>();
+        for (int month = 0; month < monthSpan; month++) {
+            if (monthRideCounts[month] > 0) {
+                int absoluteMonth = firstMonth + month;
+                statsByMonth.put(monthKey(absoluteMonth), toDayStats(dayCounts, dayCents, month * DAYS_PER_WEEK,
+                        absoluteMonth % MONTHS_PER_YEAR + 1, absoluteMonth / MONTHS_PER_YEAR));
+            }
+        }
+
+        Map<Integer, List<DayOfWeekStats.DayStats>> statsByYear = new LinkedHashMap<>();
+        int[] yearCounts = new int[DAYS_PER_WEEK];
+        long[] yearCents = new long[DAYS_PER_WEEK];
+        for (int year = firstYear(); year <= lastYear(); year++) {
+            if (sumYear(year, dayCounts, dayCents, DAYS_PER_WEEK, yearCounts, yearCents)) {
+                statsByYear.put(year, toDayStats(yearCounts, yearCents, 0, 0, year));
+            }
+        }
+        return new DayOfWeekStats(statsByMonth, statsByYear);
+    }
+
+    synchronized TimeSlotStats timeSlotStats() {
+        Map<String, List<TimeSlotStats.TimeSlotData>> statsByMonth = new LinkedHashMap<>();
+        for (int month = 0; month < monthSpan; month++) {
+            if (monthRideCounts[month] > 0) {
+                int absoluteMonth = firstMonth + month;
+                statsByMonth.put(monthKey(absoluteMonth), toTimeSlotData(slotCounts, slotCents, month * slotCount,
+                        absoluteMonth % MONTHS_PER_YEAR + 1, absoluteMonth / MONTHS_PER_YEAR));
+            }
+        }
+
+        Map<Integer, List<TimeSlotStats.TimeSlotData>> statsByYear = new LinkedHashMap<>();
+        int[] yearCounts = new int[slotCount];
+        long[] yearCents = new long[slotCount];
+        for (int year = firstYear(); year <= lastYear(); year++) {
+            if (sumYear(year, slotCounts, slotCents, slotCount, yearCounts, yearCents)) {
+                statsByYear.put(year, toTimeSlotData(yearCounts, yearCents, 0, 0, year));
+            }
+        }
+        return new TimeSlotStats(statsByMonth, statsByYear);
+    }
+
+    /**
+     * Médiane, p90 et p99 du prix et de la durée par mois et par année. Les esquisses annuelles sont
+     * la somme des lignes mensuelles, sans revenir aux courses.
+     */
+    synchronized DistributionStats distributionStats() {
+        Map<String, DistributionStats.Distribution> statsByMonth = new LinkedHashMap<>();
+        for (int month = 0; month < monthSpan; month++) {
+            if (monthRideCounts[month] > 0) {
+                statsByMonth.put(monthKey(firstMonth + month), toDistribution(monthRideCounts[month],
+                        priceSketches, month * PRICE_BUCKETS, durationSketches, month * DURATION_BUCKETS));
+            }
+        }
+
+        Map<Integer, DistributionStats.Distribution> statsByYear = new LinkedHashMap<>();
+        int[] yearPrices = new int[PRICE_BUCKETS];
+        int[] yearDurations = new int[DURATION_BUCKETS];
+        for (int year = firstYear(); year <= lastYear(); year++) {
+            int rides = yearRideCount(year);
+            if (rides > 0) {
+                mergeYear(year, priceSketches, PRICE_BUCKETS, yearPrices);
+                mergeYear(year, durationSketches, DURATION_BUCKETS, yearDurations);
+                statsByYear.put(year, toDistribution(rides, yearPrices, 0, yearDurations, 0));
+            }
+        }
+        return new DistributionStats(statsByMonth, statsByYear);
+    }
+
+    private static DistributionStats.Distribution toDistribution(int rides, int[] prices, int priceOffset,
+                                                                 int[] durations, int durationOffset) {
+        return new DistributionStats.Distribution(rides,
+                RideEncoding.fromCents(Math.round(PRICE_SKETCH.quantile(prices, priceOffset, 0.5))),
+                RideEncoding.fromCents(Math.round(PRICE_SKETCH.quantile(prices, priceOffset, 0.9))),
+                RideEncoding.fromCents(Math.round(PRICE_SKETCH.quantile(prices, priceOffset, 0.99))),
+                DURATION_SKETCH.quantile(durations, durationOffset, 0.5),
+                DURATION_SKETCH.quantile(durations, durationOffset, 0.9),
+                DURATION_SKETCH.quantile(durations, durationOffset, 0.99));
+    }
+
+    private void mergeYear(int year, int[] sketches, int width, int[] out) {
+        Arrays.fill(out, 0);
+        int from = Math.max(0, year * MONTHS_PER_YEAR - firstMonth);
+        int to = Math.min(monthSpan, (year + 1) * MONTHS_PER_YEAR - firstMonth);
+        for (int month = from; month < to; month++) {
+            int row = month * width;
+            for (int bucket = 0; bucket < width; bucket++) {
+                out[bucket] += sketches[row + bucket];
+            }
+        }
+    }
+
+    /**
+     * Totaux des courses datées de {@code from} à {@code to} inclus, en temps constant.
+     */
+    synchronized RangeStats rangeStats(LocalDate from, LocalDate to) {
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        return new RangeStats(from, to, daily.rideCount(fromDay, toDay),
+                RideEncoding.fromCents(daily.cents(fromDay, toDay)), daily.minutes(fromDay, toDay));
+    }
+
+    /**
+     * Moyennes glissantes sur 7 et 30 jours des {@code TREND_DAYS} derniers jours jusqu'à {@code today},
+     * lues dans les fenêtres de l'index journalier.
+     */
+    synchronized TrendStats trendStats(LocalDate today) {
+        double[] revenueShort = new double[TREND_DAYS];
+        double[] revenueLong = new double[TREND_DAYS];
+        double[] ridesShort = new double[TREND_DAYS];
+        double[] ridesLong = new double[TREND_DAYS];
+        long firstDay = today.toEpochDay() - TREND_DAYS + 1;
+        for (int i = 0; i < TREND_DAYS; i++) {
+            long epochDay = firstDay + i;
+            revenueShort[i] = RideEncoding.fromCents(daily.windowCents(epochDay, DailyRevenueIndex.SHORT_WINDOW))
+                    / DailyRevenueIndex.SHORT_WINDOW;
+            revenueLong[i] = RideEncoding.fromCents(daily.windowCents(epochDay, DailyRevenueIndex.LONG_WINDOW))
+                    / DailyRevenueIndex.LONG_WINDOW;
+            ridesShort[i] = (double) daily.windowRideCount(epochDay, DailyRevenueIndex.SHORT_WINDOW)
+                    / DailyRevenueIndex.SHORT_WINDOW;
+            ridesLong[i] = (double) daily.windowRideCount(epochDay, DailyRevenueIndex.LONG_WINDOW)
+                    / DailyRevenueIndex.LONG_WINDOW;
+        }
+        return new TrendStats(LocalDate.ofEpochDay(firstDay), revenueShort, revenueLong, ridesShort, ridesLong);
+    }
+
+    /**
+     * Carte de chaleur d'une seule période, "YYYY-MM" ou "YYYY" ; une période inconnue ou nulle
+     * désigne le mois le plus récent. Seule la période demandée est copiée, quelle que soit la durée
+     * de l'historique.
+     */
+    synchronized HeatmapStats heatmap(String period) {
+        List<String> periods = new ArrayList<>();
+        for (int month = 0; month < monthSpan; month++) {
+            if (monthRideCounts[month] > 0) {
+                periods.add(monthKey(firstMonth + month));
+            }
+        }
+        if (periods.isEmpty()) {
+            return new HeatmapStats(Collections.emptyList(), null, new int[HEAT_CELLS], new double[HEAT_CELLS], 0);
+        }
+        String latestMonth = periods.get(periods.size() - 1);
+        for (int year = firstYear(); year <= lastYear(); year++) {
+            if (yearRideCount(year) > 0) {
+                periods.add(String.valueOf(year));
+            }
+        }
+        if (period == null || !periods.contains(period)) {
+            period = latestMonth;
+        }
+
+        int[] counts = new int[HEAT_CELLS];
+        long[] cents = new long[HEAT_CELLS];
+        if (period.indexOf('-') > 0) {
+            int absoluteMonth = Integer.parseInt(period.substring(0, 4)) * MONTHS_PER_YEAR
+                    + Integer.parseInt(period.substring(5)) - 1;
+            int row = (absoluteMonth - firstMonth) * HEAT_CELLS;
+            System.arraycopy(heatCounts, row, counts, 0, HEAT_CELLS);
+            System.arraycopy(heatCents, row, cents, 0, HEAT_CELLS);
+        } else {
+            sumYear(Integer.parseInt(period), heatCounts, heatCents, HEAT_CELLS, counts, cents);
+        }
+
+        double[] amounts = new double[HEAT_CELLS];
+        double maxAmount = 0;
+        for (int cell = 0; cell < HEAT_CELLS; cell++) {
+            amounts[cell] = RideEncoding.fromCents(cents[cell]);
+            maxAmount = Math.max(maxAmount, amounts[cell]);
+        }
+        return new HeatmapStats(periods, period, counts, amounts, maxAmount);
+    }
+
+    private int yearRideCount(int year) {
+        int from = Math.max(0, year * MONTHS_PER_YEAR - firstMonth);
+        int to = Math.min(monthSpan, (year + 1) * MONTHS_PER_YEAR - firstMonth);
+        int rides = 0;
+        for (int month = from; month < to; month++) {
+            rides += monthRideCounts[month];
+        }
+        return rides;
+    }
+
+    private int firstYear() {
+        return firstMonth / MONTHS_PER_YEAR;
+    }
+
+    private int lastYear() {
+        return monthSpan == 0 ? firstYear() - 1 : (firstMonth + monthSpan - 1) / MONTHS_PER_YEAR;
+    }
+
+    /**
+     * Somme les lignes des mois de {@code year} dans {@code outCounts} / {@code outCents}.
+     *
+     * @return true si l'année contient au moins une course
+     */
+    private boolean sumYear(int year, int[] counts, long[] cents, int width, int[] outCounts, long[] outCents) {
+        Arrays.fill(outCounts, 0);
+        Arrays.fill(outCents, 0);
+        int from = Math.max(0, year * MONTHS_PER_YEAR - firstMonth);
+        int to = Math.min(monthSpan, (year + 1) * MONTHS_PER_YEAR - firstMonth);
+        int rides = 0;
+        for (int month = from; month < to; month++) {
+            rides += monthRideCounts[month];
+            int row = month * width;
+            for (int column = 0; column < width; column++) {
+                outCounts[column] += counts[row + column];
+                outCents[column] += cents[row + column];
+            }
+        }
+        return rides > 0;
+    }
+
+    private static List<DayOfWeekStats.DayStats> toDayStats(int[] counts, long[] cents, int row, int month, int year) {
+        List<DayOfWeekStats.DayStats> dayStatsList = new ArrayList<>();
+        for (int day = 0; day < DAYS_PER_WEEK; day++) {
+            if (counts[row + day] > 0) {
+                String dayName = DayOfWeek.of(day + 1).getDisplayName(TextStyle.FULL, FRENCH_LOCALE);
+                dayStatsList.add(new DayOfWeekStats.DayStats(dayName, month, year,
+                        counts[row + day], RideEncoding.fromCents(cents[row + day])));
+            }
+        }
+        dayStatsList.sort((a, b) -> Double.compare(b.getTotalAmount(), a.getTotalAmount()));
+        return dayStatsList;
+    }
+
+    private List<TimeSlotStats.TimeSlotData> toTimeSlotData(int[] counts, long[] cents, int row,
+                                                            int month, int year) {
+        List<TimeSlotStats.TimeSlotData> timeSlotDataList = new ArrayList<>();
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (counts[row + slot] > 0) {
+                timeSlotDataList.add(new TimeSlotStats.TimeSlotData(classifier.getLabel(slot),
+                        month, year, counts[row + slot], RideEncoding.fromCents(cents[row + slot])));
+            }
+        }
+        timeSlotDataList.sort((a, b) -> Double.compare(b.getTotalAmount(), a.getTotalAmount()));
+        return timeSlotDataList;
+    }
+
+    /**
+     * Clé "YYYY-MM" attendue par l'écran, construite seulement pour les mois publiés.
+     */
+    private static String monthKey(int absoluteMonth) {
+        int month = absoluteMonth % MONTHS_PER_YEAR + 1;
+        return (absoluteMonth / MONTHS_PER_YEAR) + (month < 10 ? "-0" : "-") + month;
+    }
+}
@@ -9,6 +9,7 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.core.util.Pair;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 
@@ -16,8 +17,13 @@ import com.driveup.R;
 import com.driveup.databinding.FragmentDashboardBinding;
 import com.driveup.databinding.ItemStatBarBinding;
 import com.driveup.databinding.ItemStatPeriodBinding;
+import com.google.android.material.datepicker.MaterialDatePicker;
 
 import java.text.NumberFormat;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -32,6 +38,9 @@ public class StatFragment extends Fragment {
         "Juillet", "Août", "Septembre", "Octobre", "Novembre", "Décembre"
     };
     
+    private static final DateTimeFormatter RANGE_DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy");
+    private static final int MINUTES_PER_HOUR = 60;
+
     private FragmentDashboardBinding binding;
     private StatViewModel statViewModel;
     private NumberFormat currencyFormat;
@@ -72,6 +81,40 @@ public class StatFragment extends Fragment {
             }
         });
 
+        statViewModel.getHeatmap().observe(getViewLifecycleOwner(), heatmap -> {
+            if (heatmap != null) {
+                updateHeatmap(heatmap);
+            }
+        });
+
+        statViewModel.getRangeStats().observe(getViewLifecycleOwner(), rangeStats -> {
+            if (rangeStats != null) {
+                updateRangeStats(rangeStats);
+            }
+        });
+
+        statViewModel.getTrendStats().observe(getViewLifecycleOwner(), trendStats -> {
+            if (trendStats != null) {
+                updateTrendStats(trendStats);
+            }
+        });
+
+        statViewModel.getDistributionStats().observe(getViewLifecycleOwner(), distributionStats -> {
+            if (distributionStats != null) {
+                updateDistributionStats(distributionStats);
+            }
+        });
+
+        binding.chipGroupRange.setOnCheckedStateChangeListener((group, checkedIds) -> onRangeChipChecked());
+        binding.chipRangeCustom.setOnClickListener(v -> showCustomRangePicker());
+        onRangeChipChecked();
+
+        binding.buttonHeatmapPrevious.setOnClickListener(v -> moveHeatmapPeriod(-1));
+        binding.buttonHeatmapNext.setOnClickListener(v -> moveHeatmapPeriod(1));
+
+        binding.chipGroupTimeSlotScheme.check(schemeChipId(statViewModel.getTimeSlotScheme()));
+        binding.chipGroupTimeSlotScheme.setOnCheckedStateChangeListener((group, checkedIds) -> onSchemeChipChecked());
+
         statViewModel.getIsLoading().observe(getViewLifecycleOwner(), isLoading -> {
             if (!isLoading && statViewModel.getTotalStats().getValue() == null) {
                 showEmptyState();
@@ -86,6 +129,10 @@ public class StatFragment extends Fragment {
         setKPICardsVisibility(View.GONE);
         binding.cardDayStats.setVisibility(View.GONE);
         binding.cardTimeSlotStats.setVisibility(View.GONE);
+        binding.cardHeatmap.setVisibility(View.GONE);
+        binding.cardRangeStats.setVisibility(View.GONE);
+        binding.cardTrend.setVisibility(View.GONE);
+        binding.cardDistribution.setVisibility(View.GONE);
     }
 
     private void hideEmptyState() {
@@ -93,6 +140,10 @@ public class StatFragment extends Fragment {
         setKPICardsVisibility(View.VISIBLE);
         binding.cardDayStats.setVisibility(View.VISIBLE);
         binding.cardTimeSlotStats.setVisibility(View.VISIBLE);
+        binding.cardHeatmap.setVisibility(View.VISIBLE);
+        binding.cardRangeStats.setVisibility(View.VISIBLE);
+        binding.cardTrend.setVisibility(View.VISIBLE);
+        binding.cardDistribution.setVisibility(View.VISIBLE);
     }
 
     private void setKPICardsVisibility(int visibility) {
@@ -158,6 +209,158 @@ public class StatFragment extends Fragment {
         );
     }
 
+    private void onRangeChipChecked() {
+        LocalDate today = LocalDate.now();
+        int checkedId = binding.chipGroupRange.getCheckedChipId();
+        if (checkedId == R.id.chip_range_7_days) {
+            statViewModel.selectRange(today.minusDays(6), today);
+        } else if (checkedId == R.id.chip_range_30_days) {
+            statViewModel.selectRange(today.minusDays(29), today);
+        } else if (checkedId == R.id.chip_range_quarter) {
+            int firstMonthOfQuarter = (today.getMonthValue() - 1) / 3 * 3 + 1;
+            statViewModel.selectRange(LocalDate.of(today.getYear(), firstMonthOfQuarter, 1), today);
+        }
+    }
+
+    private void onSchemeChipChecked() {
+        int checkedId = binding.chipGroupTimeSlotScheme.getCheckedChipId();
+        if (checkedId == R.id.chip_scheme_hourly) {
+            statViewModel.setTimeSlotScheme(TimeSlotClassifier.HOURLY.getId());
+        } else if (checkedId == R.id.chip_scheme_rush_hours) {
+            statViewModel.setTimeSlotScheme(TimeSlotClassifier.RUSH_HOURS.getId());
+        } else if (checkedId == R.id.chip_scheme_quarters) {
+            statViewModel.setTimeSlotScheme(TimeSlotClassifier.QUARTERS.getId());
+        }
+    }
+
+    private static int schemeChipId(String schemeId) {
+        if (TimeSlotClassifier.HOURLY.getId().equals(schemeId)) {
+            return R.id.chip_scheme_hourly;
+        }
+        if (TimeSlotClassifier.RUSH_HOURS.getId().equals(schemeId)) {
+            return R.id.chip_scheme_rush_hours;
+        }
+        return R.id.chip_scheme_quarters;
+    }
+
+    private void showCustomRangePicker() {
+        MaterialDatePicker<Pair<Long, Long>> picker = MaterialDatePicker.Builder
+                .dateRangePicker()
+                .setTitleText("Choisir une période")
+                .build();
+        picker.addOnPositiveButtonClickListener(selection -> {
+            if (selection.first != null && selection.second != null) {
+                statViewModel.selectRange(toLocalDate(selection.first), toLocalDate(selection.second));
+            }
+        });
+        picker.show(getChildFragmentManager(), "range_picker");
+    }
+
+    private static LocalDate toLocalDate(long utcMillis) {
+        // Le sélecteur renvoie minuit UTC du jour choisi
+        return Instant.ofEpochMilli(utcMillis).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    private void updateRangeStats(RangeStats rangeStats) {
+        binding.textRangePeriod.setText("Du " + rangeStats.getFrom().format(RANGE_DATE_FORMAT)
+                + " au " + rangeStats.getTo().format(RANGE_DATE_FORMAT));
+        int count = rangeStats.getRideCount();
+        long minutes = rangeStats.getDrivenMinutes();
+        binding.textRangeSummary.setText(currencyFormat.format(rangeStats.getTotalAmount())
+                + " · " + count + " course" + (count > 1 ? "s" : "")
+                + " · " + String.format(FRENCH_LOCALE, "%d h %02d", minutes / MINUTES_PER_HOUR,
+                minutes % MINUTES_PER_HOUR));
+    }
+
+    private void updateTrendStats(TrendStats trendStats) {
+        binding.trendView.setTrend(trendStats);
+        int today = trendStats.getDailyRevenueShortAverage().length - 1;
+        double shortRevenue = trendStats.getDailyRevenueShortAverage()[today];
+        double longRevenue = trendStats.getDailyRevenueLongAverage()[today];
+        binding.textTrendShort.setText(formatTrendLine("7 jours", shortRevenue,
+                trendStats.getDailyRidesShortAverage()[today]));
+        binding.textTrendLong.setText(formatTrendLine("30 jours", longRevenue,
+                trendStats.getDailyRidesLongAverage()[today]));
+
+        if (longRevenue <= 0) {
+            binding.textTrendDirection.setVisibility(View.GONE);
+            return;
+        }
+        long percent = Math.round((shortRevenue - longRevenue) / longRevenue * 100);
+        binding.textTrendDirection.setVisibility(View.VISIBLE);
+        binding.textTrendDirection.setText("Tendance : " + (percent > 0 ? "+" : "") + percent + " %");
+        binding.textTrendDirection.setTextColor(ContextCompat.getColor(requireContext(), percent >= 0
+                ? android.R.color.holo_green_dark : android.R.color.holo_red_dark));
+    }
+
+    private String formatTrendLine(String window, double revenuePerDay, double ridesPerDay) {
+        return "Moyenne " + window + " : " + currencyFormat.format(revenuePerDay) + " / jour · "
+                + String.format(FRENCH_LOCALE, "%.1f", ridesPerDay) + " courses / jour";
+    }
+
+    /**
+     * Affiche le mois et l'année les plus récents ; les maps sont déjà dans l'ordre chronologique.
+     */
+    private void updateDistributionStats(DistributionStats distributionStats) {
+        LinearLayout layout = binding.layoutDistribution;
+        clearLayout(layout);
+
+        Map.Entry<String, DistributionStats.Distribution> latestMonth = null;
+        for (Map.Entry<String, DistributionStats.Distribution> entry : distributionStats.getStatsByMonth().entrySet()) {
+            latestMonth = entry;
+        }
+        Map.Entry<Integer, DistributionStats.Distribution> latestYear = null;
+        for (Map.Entry<Integer, DistributionStats.Distribution> entry : distributionStats.getStatsByYear().entrySet()) {
+            latestYear = entry;
+        }
+        if (latestMonth == null || latestYear == null) {
+            layout.addView(createEmptyTextView("Aucune donnée"));
+            return;
+        }
+        layout.addView(createDistributionView(getPeriodName(latestMonth.getKey()), latestMonth.getValue()));
+        layout.addView(createDistributionView(String.valueOf(latestYear.getKey()), latestYear.getValue()));
+    }
+
+    private View createDistributionView(String period, DistributionStats.Distribution distribution) {
+        ItemStatPeriodBinding periodBinding = createPeriodBinding();
+        periodBinding.textPeriod.setText(period + " " + formatRideCount(distribution.getRideCount()));
+
+        TextView priceText = new TextView(requireContext());
+        priceText.setText("Prix : médiane " + currencyFormat.format(distribution.getMedianPrice())
+                + " · p90 " + currencyFormat.format(distribution.getP90Price())
+                + " · p99 " + currencyFormat.format(distribution.getP99Price()));
+        periodBinding.layoutStats.addView(priceText);
+
+        TextView durationText = new TextView(requireContext());
+        durationText.setText("Durée : médiane " + Math.round(distribution.getMedianDurationMinutes()) + " min"
+                + " · p90 " + Math.round(distribution.getP90DurationMinutes()) + " min"
+                + " · p99 " + Math.round(distribution.getP99DurationMinutes()) + " min");
+        periodBinding.layoutStats.addView(durationText);
+
+        return periodBinding.getRoot();
+    }
+
+    private void updateHeatmap(HeatmapStats heatmap) {
+        List<String> periods = heatmap.getPeriods();
+        int index = periods.indexOf(heatmap.getPeriod());
+        binding.textHeatmapPeriod.setText(heatmap.getPeriod() == null
+                ? "Aucune donnée" : getPeriodName(heatmap.getPeriod()));
+        binding.buttonHeatmapPrevious.setEnabled(index > 0);
+        binding.buttonHeatmapNext.setEnabled(index >= 0 && index < periods.size() - 1);
+        binding.heatmapView.setHeatmap(heatmap);
+    }
+
+    private void moveHeatmapPeriod(int step) {
+        HeatmapStats heatmap = statViewModel.getHeatmap().getValue();
+        if (heatmap == null) {
+            return;
+        }
+        int index = heatmap.getPeriods().indexOf(heatmap.getPeriod()) + step;
+        if (index >= 0 && index < heatmap.getPeriods().size()) {
+            statViewModel.selectHeatmapPeriod(heatmap.getPeriods().get(index));
+        }
+    }
+
     @FunctionalInterface
     private interface StatViewCreator<T> {
         View create(String period, T most, T least);
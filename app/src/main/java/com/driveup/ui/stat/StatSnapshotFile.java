@@ -0,0 +1,306 @@
+package com.driveup.ui.stat;
+
+import androidx.annotation.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Dernières statistiques publiées (toutes les cartes du tableau de bord), enregistrées dans un fichier
+ * binaire avec la version des données dont elles sont issues et le découpage horaire utilisé. Au démarrage,
+ * le tableau de bord s'affiche depuis ce fichier ; s'il est à jour, {@link StatAggregateStore} n'est
+ * reconstruit qu'au premier besoin.
+ * <p>
+ * Format : en-tête (magique, format, version des données, découpage horaire), table des libellés (jours,
+ * plages horaires), puis chaque section sous forme de groupes (clé de période, lignes) où un libellé n'est
+ * qu'un indice. Carte de chaleur, tendances et plage de dates suivent sous forme de tableaux.
+ * L'écriture passe par un fichier temporaire renommé : un arrêt brutal laisse l'ancien fichier intact.
+ */
+class StatSnapshotFile {
+
+    private static final int MAGIC = 0x44555354; // "DUST"
+    private static final int FORMAT = 2;
+    private static final String FILE_NAME = "stat_snapshot.bin";
+
+    @Data
+    @AllArgsConstructor
+    static class Snapshot {
+        private long dataVersion;
+        private String timeSlotScheme; // Identifiant du TimeSlotClassifier
+        private TotalStats totalStats;
+        private DayOfWeekStats dayOfWeekStats;
+        private TimeSlotStats timeSlotStats;
+        private HeatmapStats heatmap;
+        private TrendStats trendStats;
+        private DistributionStats distributionStats;
+        private RangeStats rangeStats; // null si aucune plage n'était choisie
+    }
+
+    private final File file;
+    private final File tempFile;
+    // Les écritures partent du pool disque, dans un ordre quelconque : une version plus ancienne est ignorée.
+    // Une même version est réécrite : changer de découpage horaire republie les mêmes données autrement.
+    private long writtenVersion = -1;
+
+    StatSnapshotFile(File directory) {
+        this.file = new File(directory, FILE_NAME);
+        this.tempFile = new File(directory, FILE_NAME + ".tmp");
+    }
+
+    /**
+     * @return le dernier instantané enregistré, ou null s'il n'y en a pas
+     * @throws IOException si le fichier est illisible ou d'un autre format
+     */
+    @Nullable
+    synchronized Snapshot read() throws IOException {
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+                throw new IOException("Format d'instantané inconnu");
+            }
+            long dataVersion = in.readLong();
+            String timeSlotScheme = in.readUTF();
+            String[] labels = new String[in.readUnsignedShort()];
+            for (int i = 0; i < labels.length; i++) {
+                labels[i] = in.readUTF();
+            }
+            TotalStats totals = new TotalStats(in.readInt(), in.readDouble());
+            DayOfWeekStats days = new DayOfWeekStats(readDayStats(in, labels, key -> key),
+                    readDayStats(in, labels, Integer::valueOf));
+            TimeSlotStats slots = new TimeSlotStats(readTimeSlotData(in, labels, key -> key),
+                    readTimeSlotData(in, labels, Integer::valueOf));
+            HeatmapStats heatmap = readHeatmap(in);
+            TrendStats trend = new TrendStats(LocalDate.ofEpochDay(in.readLong()), readDoubles(in),
+                    readDoubles(in), readDoubles(in), readDoubles(in));
+            DistributionStats distribution = new DistributionStats(readDistributions(in, key -> key),
+                    readDistributions(in, Integer::valueOf));
+            RangeStats range = in.readBoolean() ? new RangeStats(LocalDate.ofEpochDay(in.readLong()),
+                    LocalDate.ofEpochDay(in.readLong()), in.readInt(), in.readDouble(), in.readLong()) : null;
+            return new Snapshot(dataVersion, timeSlotScheme, totals, days, slots, heatmap, trend, distribution, range);
+        }
+    }
+
+    synchronized void write(Snapshot snapshot) throws IOException {
+        if (snapshot.getDataVersion() < writtenVersion) {
+            return;
+        }
+        Map<String, Integer> labels = new LinkedHashMap<>();
+        collectLabels(snapshot, labels);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT);
+            out.writeLong(snapshot.getDataVersion());
+            out.writeUTF(snapshot.getTimeSlotScheme());
+            out.writeShort(labels.size());
+            for (String label : labels.keySet()) {
+                out.writeUTF(label);
+            }
+            out.writeInt(snapshot.getTotalStats().getTotalRides());
+            out.writeDouble(snapshot.getTotalStats().getTotalAmount());
+            writeDayStats(out, labels, snapshot.getDayOfWeekStats().getStatsByMonth());
+            writeDayStats(out, labels, snapshot.getDayOfWeekStats().getStatsByYear());
+            writeTimeSlotData(out, labels, snapshot.getTimeSlotStats().getStatsByMonth());
+            writeTimeSlotData(out, labels, snapshot.getTimeSlotStats().getStatsByYear());
+            writeHeatmap(out, snapshot.getHeatmap());
+            TrendStats trend = snapshot.getTrendStats();
+            out.writeLong(trend.getFirstDay().toEpochDay());
+            writeDoubles(out, trend.getDailyRevenueShortAverage());
+            writeDoubles(out, trend.getDailyRevenueLongAverage());
+            writeDoubles(out, trend.getDailyRidesShortAverage());
+            writeDoubles(out, trend.getDailyRidesLongAverage());
+            writeDistributions(out, snapshot.getDistributionStats().getStatsByMonth());
+            writeDistributions(out, snapshot.getDistributionStats().getStatsByYear());
+            RangeStats range = snapshot.getRangeStats();
+            out.writeBoolean(range != null);
+            if (range != null) {
+                out.writeLong(range.getFrom().toEpochDay());
+                out.writeLong(range.getTo().toEpochDay());
+                out.writeInt(range.getRideCount());
+                out.writeDouble(range.getTotalAmount());
+                out.writeLong(range.getDrivenMinutes());
+            }
+        }
+        if (!tempFile.renameTo(file)) {
+            throw new IOException("Impossible de remplacer " + file);
+        }
+        writtenVersion = snapshot.getDataVersion();
+    }
+
+    private static void collectLabels(Snapshot snapshot, Map<String, Integer> labels) {
+        DayOfWeekStats days = snapshot.getDayOfWeekStats();
+        List<List<DayOfWeekStats.DayStats>> dayGroups = new ArrayList<>(days.getStatsByMonth().values());
+        dayGroups.addAll(days.getStatsByYear().values());
+        for (List<DayOfWeekStats.DayStats> group : dayGroups) {
+            for (DayOfWeekStats.DayStats day : group) {
+                labels.putIfAbsent(day.getDayOfWeek(), labels.size());
+            }
+        }
+        TimeSlotStats slots = snapshot.getTimeSlotStats();
+        List<List<TimeSlotStats.TimeSlotData>> slotGroups = new ArrayList<>(slots.getStatsByMonth().values());
+        slotGroups.addAll(slots.getStatsByYear().values());
+        for (List<TimeSlotStats.TimeSlotData> group : slotGroups) {
+            for (TimeSlotStats.TimeSlotData slot : group) {
+                labels.putIfAbsent(slot.getTimeSlot(), labels.size());
+            }
+        }
+    }
+
+    // Les clés de période sont des "YYYY-MM" ou des années : on les écrit telles quelles, en texte
+    private static <K> void writeDayStats(DataOutputStream out, Map<String, Integer> labels,
+                                          Map<K, List<DayOfWeekStats.DayStats>> groups) throws IOException {
+        out.writeInt(groups.size());
+        for (Map.Entry<K, List<DayOfWeekStats.DayStats>> group : groups.entrySet()) {
+            out.writeUTF(String.valueOf(group.getKey()));
+            out.writeInt(group.getValue().size());
+            for (DayOfWeekStats.DayStats day : group.getValue()) {
+                out.writeShort(labels.get(day.getDayOfWeek()));
+                out.writeByte(day.getMonth());
+                out.writeShort(day.getYear());
+                out.writeInt(day.getRideCount());
+                out.writeDouble(day.getTotalAmount());
+            }
+        }
+    }
+
+    private static <K> void writeTimeSlotData(DataOutputStream out, Map<String, Integer> labels,
+                                              Map<K, List<TimeSlotStats.TimeSlotData>> groups) throws IOException {
+        out.writeInt(groups.size());
+        for (Map.Entry<K, List<TimeSlotStats.TimeSlotData>> group : groups.entrySet()) {
+            out.writeUTF(String.valueOf(group.getKey()));
+            out.writeInt(group.getValue().size());
+            for (TimeSlotStats.TimeSlotData slot : group.getValue()) {
+                out.writeShort(labels.get(slot.getTimeSlot()));
+                out.writeByte(slot.getMonth());
+                out.writeShort(slot.getYear());
+                out.writeInt(slot.getRideCount());
+                out.writeDouble(slot.getTotalAmount());
+            }
+        }
+    }
+
+    private static <K> Map<K, List<DayOfWeekStats.DayStats>> readDayStats(
+            DataInputStream in, String[] labels, Function<String, K> parseKey) throws IOException {
+        Map<K, List<DayOfWeekStats.DayStats>> groups = new LinkedHashMap<>();
+        int groupCount = in.readInt();
+        for (int g = 0; g < groupCount; g++) {
+            String key = in.readUTF();
+            int size = in.readInt();
+            List<DayOfWeekStats.DayStats> days = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                days.add(new DayOfWeekStats.DayStats(labels[in.readUnsignedShort()], in.readUnsignedByte(),
+                        in.readUnsignedShort(), in.readInt(), in.readDouble()));
+            }
+            groups.put(parseKey.apply(key), days);
+        }
+        return groups;
+    }
+
+    private static <K> Map<K, List<TimeSlotStats.TimeSlotData>> readTimeSlotData(
+            DataInputStream in, String[] labels, Function<String, K> parseKey) throws IOException {
+        Map<K, List<TimeSlotStats.TimeSlotData>> groups = new LinkedHashMap<>();
+        int groupCount = in.readInt();
+        for (int g = 0; g < groupCount; g++) {
+            String key = in.readUTF();
+            int size = in.readInt();
+            List<TimeSlotStats.TimeSlotData> slots = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                slots.add(new TimeSlotStats.TimeSlotData(labels[in.readUnsignedShort()], in.readUnsignedByte(),
+                        in.readUnsignedShort(), in.readInt(), in.readDouble()));
+            }
+            groups.put(parseKey.apply(key), slots);
+        }
+        return groups;
+    }
+
+    private static void writeHeatmap(DataOutputStream out, HeatmapStats heatmap) throws IOException {
+        out.writeInt(heatmap.getPeriods().size());
+        for (String period : heatmap.getPeriods()) {
+            out.writeUTF(period);
+        }
+        out.writeBoolean(heatmap.getPeriod() != null);
+        if (heatmap.getPeriod() != null) {
+            out.writeUTF(heatmap.getPeriod());
+        }
+        out.writeInt(heatmap.getRideCounts().length);
+        for (int count : heatmap.getRideCounts()) {
+            out.writeInt(count);
+        }
+        writeDoubles(out, heatmap.getAmounts());
+        out.writeDouble(heatmap.getMaxAmount());
+    }
+
+    private static HeatmapStats readHeatmap(DataInputStream in) throws IOException {
+        int periodCount = in.readInt();
+        List<String> periods = new ArrayList<>(periodCount);
+        for (int i = 0; i < periodCount; i++) {
+            periods.add(in.readUTF());
+        }
+        String period = in.readBoolean() ? in.readUTF() : null;
+        int[] counts = new int[in.readInt()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readInt();
+        }
+        return new HeatmapStats(periods, period, counts, readDoubles(in), in.readDouble());
+    }
+
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        for (double value : values) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static double[] readDoubles(DataInputStream in) throws IOException {
+        double[] values = new double[in.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = in.readDouble();
+        }
+        return values;
+    }
+
+    private static <K> void writeDistributions(DataOutputStream out,
+                                               Map<K, DistributionStats.Distribution> groups) throws IOException {
+        out.writeInt(groups.size());
+        for (Map.Entry<K, DistributionStats.Distribution> group : groups.entrySet()) {
+            DistributionStats.Distribution distribution = group.getValue();
+            out.writeUTF(String.valueOf(group.getKey()));
+            out.writeInt(distribution.getRideCount());
+            out.writeDouble(distribution.getMedianPrice());
+            out.writeDouble(distribution.getP90Price());
+            out.writeDouble(distribution.getP99Price());
+            out.writeDouble(distribution.getMedianDurationMinutes());
+            out.writeDouble(distribution.getP90DurationMinutes());
+            out.writeDouble(distribution.getP99DurationMinutes());
+        }
+    }
+
+    private static <K> Map<K, DistributionStats.Distribution> readDistributions(
+            DataInputStream in, Function<String, K> parseKey) throws IOException {
+        Map<K, DistributionStats.Distribution> groups = new LinkedHashMap<>();
+        int groupCount = in.readInt();
+        for (int g = 0; g < groupCount; g++) {
+            String key = in.readUTF();
+            groups.put(parseKey.apply(key), new DistributionStats.Distribution(in.readInt(), in.readDouble(),
+                    in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble()));
+        }
+        return groups;
+    }
+}
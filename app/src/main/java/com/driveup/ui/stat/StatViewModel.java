@@ -1,6 +1,8 @@
 package com.driveup.ui.stat;
 
 import android.app.Application;
+import android.content.Context;
+import android.content.SharedPreferences;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
@@ -8,54 +10,83 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
-import com.driveup.DataBaseHelper;
+import com.driveup.AppExecutors;
+import com.driveup.RefreshCoalescer;
+import com.driveup.RideChange;
+import com.driveup.RideEncoding;
+import com.driveup.RideRepository;
+import com.driveup.RideStatsSnapshot;
 import com.driveup.ui.ride.Ride;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.format.TextStyle;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Locale;
-import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class StatViewModel extends AndroidViewModel {
 
     private static final String TAG = "StatViewModel";
-    
-    // Constants pour les plages horaires
-    private static final LocalTime SLOT_1_START = LocalTime.of(0, 0);
-    private static final LocalTime SLOT_1_END = LocalTime.of(6, 0);
-    private static final LocalTime SLOT_2_START = LocalTime.of(6, 0);
-    private static final LocalTime SLOT_2_END = LocalTime.of(12, 0);
-    private static final LocalTime SLOT_3_START = LocalTime.of(12, 0);
-    private static final LocalTime SLOT_3_END = LocalTime.of(18, 0);
-    private static final LocalTime SLOT_4_START = LocalTime.of(18, 0);
-    private static final LocalTime SLOT_4_END = LocalTime.of(23, 59, 59);
-    
-    private static final String SLOT_1_LABEL = "00:00-06:00";
-    private static final String SLOT_2_LABEL = "06:00-12:00";
-    private static final String SLOT_3_LABEL = "12:00-18:00";
-    private static final String SLOT_4_LABEL = "18:00-00:00";
-    
-    private static final String MONTH_KEY_SEPARATOR = "-";
-    private static final String MONTH_KEY_FORMAT = "%02d";
-    private static final Locale FRENCH_LOCALE = Locale.FRENCH;
-    
-    private final DataBaseHelper dbHelper;
-    
+
+    // Fenêtre de regroupement des demandes (ajout, import, retour sur l'écran...)
+    private static final long REFRESH_COALESCE_MS = 150;
+    private static final String PREFERENCES_NAME = "stat_settings";
+    private static final String KEY_TIME_SLOT_SCHEME = "time_slot_scheme";
+
+    private final RideRepository repository;
+    private final RideRepository.Listener changeListener = this::onRidesChanged;
+    private final ExecutorService diskIO;
+    private final Executor computation;
+    // File unique des deltas, remplacements de mois et remises à zéro : appliqués dans l'ordre des versions
+    private final Executor statUpdates;
+    private final Executor mainThread;
+    private final SharedPreferences preferences;
+    private final StatAggregateStore aggregates;
+    private final RefreshCoalescer refreshCoalescer = new RefreshCoalescer(this::loadStatistics, REFRESH_COALESCE_MS);
+    private final RefreshCoalescer monthsCoalescer = new RefreshCoalescer(this::recomputePendingMonths, REFRESH_COALESCE_MS);
+    // Lots d'import reçus depuis le dernier recalcul par mois (thread UI) : plage de dates et versions
+    private LocalDate pendingFrom;
+    private LocalDate pendingTo;
+    private long pendingFirstVersion;
+    private long pendingLastVersion;
+    // Chaque reconstruction lancée reçoit une génération ; une reconstruction dépassée ne publie rien
+    private final AtomicLong generation = new AtomicLong();
+    private Future<?> inFlight;
+    private final StatSnapshotFile snapshotFile;
+    // Vrai dès qu'un calcul a été publié : l'instantané du disque, plus ancien, ne doit plus l'écraser
+    private volatile boolean published;
+    // Thread UI : vrai tant que l'instantané du disque est en lecture, les reconstructions attendent son verdict
+    private boolean restoring = true;
+    // Thread UI : instantané restauré à jour de la base, qui tient lieu de store tant qu'il n'est pas reconstruit
+    private StatSnapshotFile.Snapshot restored;
+
     private final MutableLiveData<TotalStats> totalStatsLiveData = new MutableLiveData<>();
     private final MutableLiveData<DayOfWeekStats> dayOfWeekStatsLiveData = new MutableLiveData<>();
     private final MutableLiveData<TimeSlotStats> timeSlotStatsLiveData = new MutableLiveData<>();
+    private final MutableLiveData<HeatmapStats> heatmapLiveData = new MutableLiveData<>();
+    private final MutableLiveData<RangeStats> rangeStatsLiveData = new MutableLiveData<>();
+    private final MutableLiveData<TrendStats> trendStatsLiveData = new MutableLiveData<>();
+    private final MutableLiveData<DistributionStats> distributionStatsLiveData = new MutableLiveData<>();
+    // Période de la carte de chaleur choisie à l'écran, null pour le mois le plus récent
+    private volatile String heatmapPeriod;
+    // Plage de dates choisie à l'écran, lue ensemble : null tant qu'aucune plage n'est choisie
+    private volatile LocalDate[] selectedRange;
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>();
 
     public StatViewModel(@NonNull Application application) {
         super(application);
-        dbHelper = DataBaseHelper.getInstance(application);
-        loadStatistics();
+        repository = RideRepository.getInstance(application);
+        diskIO = AppExecutors.getInstance().diskIO();
+        computation = AppExecutors.getInstance().computation();
+        statUpdates = AppExecutors.getInstance().statUpdates();
+        mainThread = AppExecutors.getInstance().mainThread();
+        preferences = application.getSharedPreferences(PREFERENCES_NAME, Context.MODE_PRIVATE);
+        aggregates = new StatAggregateStore(
+                TimeSlotClassifier.forId(preferences.getString(KEY_TIME_SLOT_SCHEME, null)));
+        snapshotFile = new StatSnapshotFile(application.getFilesDir());
+        repository.addListener(changeListener);
+        // La reconstruction complète n'est lancée qu'une fois l'instantané du disque lu, si besoin
+        restoreSnapshot();
     }
 
     public LiveData<TotalStats> getTotalStats() {
@@ -70,319 +101,367 @@ public class StatViewModel extends AndroidViewModel {
         return timeSlotStatsLiveData;
     }
 
-    public LiveData<Boolean> getIsLoading() {
-        return isLoading;
+    public LiveData<HeatmapStats> getHeatmap() {
+        return heatmapLiveData;
     }
 
-    public void refreshStatistics() {
-        loadStatistics();
+    public LiveData<RangeStats> getRangeStats() {
+        return rangeStatsLiveData;
     }
 
-    private void loadStatistics() {
-        isLoading.setValue(true);
-        try {
-            List<Ride> rides = dbHelper.getAllRides();
-            
-            totalStatsLiveData.setValue(calculateTotalStats(rides));
-            dayOfWeekStatsLiveData.setValue(calculateDayOfWeekStats(rides));
-            timeSlotStatsLiveData.setValue(calculateTimeSlotStats(rides));
-            
-        } catch (Exception e) {
-            Log.e(TAG, "Error loading statistics", e);
-        } finally {
-            isLoading.setValue(false);
-        }
+    public LiveData<TrendStats> getTrendStats() {
+        return trendStatsLiveData;
     }
 
-    private TotalStats calculateTotalStats(List<Ride> rides) {
-        int totalRides = rides.size();
-        double totalAmount = rides.stream()
-                .mapToDouble(Ride::getPrice)
-                .sum();
-        return new TotalStats(totalRides, totalAmount);
+    public LiveData<DistributionStats> getDistributionStats() {
+        return distributionStatsLiveData;
     }
 
-    private DayOfWeekStats calculateDayOfWeekStats(List<Ride> rides) {
-        Map<String, Map<DayOfWeek, List<Ride>>> ridesByMonthAndDay = groupRidesByMonthAndDay(rides);
-        Map<Integer, Map<DayOfWeek, List<Ride>>> ridesByYearAndDay = groupRidesByYearAndDay(rides);
-
-        Map<String, List<DayOfWeekStats.DayStats>> statsByMonth = convertToDayStatsByMonth(ridesByMonthAndDay);
-        Map<Integer, List<DayOfWeekStats.DayStats>> statsByYear = convertToDayStatsByYear(ridesByYearAndDay);
+    public LiveData<Boolean> getIsLoading() {
+        return isLoading;
+    }
 
-        return new DayOfWeekStats(statsByMonth, statsByYear);
+    /**
+     * Demande un rafraîchissement. Les demandes rapprochées sont regroupées en un seul calcul,
+     * qui est lui-même ignoré si aucune écriture n'a eu lieu depuis le dernier résultat publié.
+     */
+    public void refreshStatistics() {
+        refreshCoalescer.request();
     }
 
-    private Map<String, Map<DayOfWeek, List<Ride>>> groupRidesByMonthAndDay(List<Ride> rides) {
-        Map<String, Map<DayOfWeek, List<Ride>>> result = new HashMap<>();
-        for (Ride ride : rides) {
-            LocalDate date = ride.getDate();
-            String monthKey = createMonthKey(date.getYear(), date.getMonthValue());
-            DayOfWeek dayOfWeek = date.getDayOfWeek();
-            
-            result.computeIfAbsent(monthKey, k -> new HashMap<>())
-                    .computeIfAbsent(dayOfWeek, k -> new ArrayList<>())
-                    .add(ride);
+    /**
+     * Affiche la carte de chaleur d'une autre période ("YYYY-MM" ou "YYYY") sans recalculer le reste.
+     */
+    public void selectHeatmapPeriod(String period) {
+        heatmapPeriod = period;
+        if (aggregates.getVersion() == StatAggregateStore.NO_VERSION) {
+            // Store pas encore construit : la reconstruction publiera la période choisie
+            HeatmapStats saved = restored != null ? restored.getHeatmap() : null;
+            if (saved != null && period != null && period.equals(saved.getPeriod())) {
+                heatmapLiveData.setValue(saved);
+            } else if (!restoring) {
+                ensureStore();
+            }
+            return;
         }
-        return result;
+        computation.execute(() -> {
+            synchronized (aggregates) {
+                heatmapLiveData.postValue(aggregates.heatmap(period));
+            }
+        });
     }
 
-    private Map<Integer, Map<DayOfWeek, List<Ride>>> groupRidesByYearAndDay(List<Ride> rides) {
-        Map<Integer, Map<DayOfWeek, List<Ride>>> result = new HashMap<>();
-        for (Ride ride : rides) {
-            LocalDate date = ride.getDate();
-            int year = date.getYear();
-            DayOfWeek dayOfWeek = date.getDayOfWeek();
-            
-            result.computeIfAbsent(year, k -> new HashMap<>())
-                    .computeIfAbsent(dayOfWeek, k -> new ArrayList<>())
-                    .add(ride);
+    /**
+     * Totaux d'une plage de dates libre (7 derniers jours, trimestre...), {@code from} et {@code to} inclus.
+     * La réponse est lue dans l'index journalier, sans relire les courses.
+     */
+    public void selectRange(LocalDate from, LocalDate to) {
+        selectedRange = new LocalDate[]{from, to};
+        if (aggregates.getVersion() == StatAggregateStore.NO_VERSION) {
+            RangeStats saved = restored != null ? restored.getRangeStats() : null;
+            if (saved != null && saved.getFrom().equals(from) && saved.getTo().equals(to)) {
+                rangeStatsLiveData.setValue(saved);
+            } else if (!restoring) {
+                ensureStore();
+            }
+            return;
         }
-        return result;
+        computation.execute(() -> {
+            synchronized (aggregates) {
+                rangeStatsLiveData.postValue(aggregates.rangeStats(from, to));
+            }
+        });
     }
 
-    private Map<String, List<DayOfWeekStats.DayStats>> convertToDayStatsByMonth(
-            Map<String, Map<DayOfWeek, List<Ride>>> ridesByMonthAndDay) {
-        Map<String, List<DayOfWeekStats.DayStats>> statsByMonth = new LinkedHashMap<>();
-        
-        for (Map.Entry<String, Map<DayOfWeek, List<Ride>>> monthEntry : ridesByMonthAndDay.entrySet()) {
-            String monthKey = monthEntry.getKey();
-            int[] yearMonth = parseMonthKey(monthKey);
-            
-            List<DayOfWeekStats.DayStats> dayStatsList = convertDayRidesToStats(
-                    monthEntry.getValue(), yearMonth[1], yearMonth[0]);
-            sortStatsByAmountDescending(dayStatsList);
-            
-            statsByMonth.put(monthKey, dayStatsList);
+    /**
+     * Ajout ou suppression d'une course : mise à jour en O(1) ; import : seuls les mois de sa plage
+     * de dates sont relus, une fois pour tous ses lots ; remise à zéro : rien à relire. Les résumés
+     * journaliers reconstruits alimentant les groupes par mois, leur réparation relance une reconstruction
+     * complète.
+     */
+    private void onRidesChanged(RideChange change) {
+        switch (change.getType()) {
+            case INSERT:
+                applyDelta(change.getRide(), 1, change.getDataVersion());
+                break;
+            case DELETE:
+                applyDelta(change.getRide(), -1, change.getDataVersion());
+                break;
+            case BULK_INSERT:
+                queueMonths(change);
+                break;
+            case WIPE:
+                applyWipe(change.getDataVersion());
+                break;
+            case SUMMARY_REBUILD:
+                refreshStatistics();
+                break;
         }
-        return statsByMonth;
     }
 
-    private Map<Integer, List<DayOfWeekStats.DayStats>> convertToDayStatsByYear(
-            Map<Integer, Map<DayOfWeek, List<Ride>>> ridesByYearAndDay) {
-        Map<Integer, List<DayOfWeekStats.DayStats>> statsByYear = new LinkedHashMap<>();
-        
-        for (Map.Entry<Integer, Map<DayOfWeek, List<Ride>>> yearEntry : ridesByYearAndDay.entrySet()) {
-            int year = yearEntry.getKey();
-            List<DayOfWeekStats.DayStats> dayStatsList = convertDayRidesToStats(
-                    yearEntry.getValue(), 0, year);
-            sortStatsByAmountDescending(dayStatsList);
-            
-            statsByYear.put(year, dayStatsList);
-        }
-        return statsByYear;
+    /**
+     * Identifiant du découpage des plages horaires en cours (voir {@link TimeSlotClassifier#getId()}).
+     */
+    public String getTimeSlotScheme() {
+        return aggregates.getClassifier().getId();
     }
 
-    private List<DayOfWeekStats.DayStats> convertDayRidesToStats(
-            Map<DayOfWeek, List<Ride>> dayRidesMap, int month, int year) {
-        List<DayOfWeekStats.DayStats> dayStatsList = new ArrayList<>();
-        
-        for (Map.Entry<DayOfWeek, List<Ride>> dayEntry : dayRidesMap.entrySet()) {
-            DayOfWeek dayOfWeek = dayEntry.getKey();
-            List<Ride> dayRides = dayEntry.getValue();
-            
-            String dayName = dayOfWeek.getDisplayName(TextStyle.FULL, FRENCH_LOCALE);
-            int rideCount = dayRides.size();
-            double totalAmount = calculateTotalAmount(dayRides);
-            
-            dayStatsList.add(new DayOfWeekStats.DayStats(dayName, month, year, rideCount, totalAmount));
+    /**
+     * Change le découpage des plages horaires (quarts de journée, heures, heures de pointe...), l'enregistre
+     * dans les préférences et relance une reconstruction complète.
+     */
+    public void setTimeSlotScheme(String schemeId) {
+        TimeSlotClassifier classifier = TimeSlotClassifier.forId(schemeId);
+        if (classifier == aggregates.getClassifier()) {
+            return;
         }
-        return dayStatsList;
+        preferences.edit().putString(KEY_TIME_SLOT_SCHEME, classifier.getId()).apply();
+        aggregates.setClassifier(classifier);
+        restored = null;
+        refreshStatistics();
     }
 
-    private TimeSlotStats calculateTimeSlotStats(List<Ride> rides) {
-        Map<String, Map<String, List<Ride>>> ridesByMonthAndTimeSlot = groupRidesByMonthAndTimeSlot(rides);
-        Map<Integer, Map<String, List<Ride>>> ridesByYearAndTimeSlot = groupRidesByYearAndTimeSlot(rides);
-
-        Map<String, List<TimeSlotStats.TimeSlotData>> statsByMonth = 
-                convertToTimeSlotStatsByMonth(ridesByMonthAndTimeSlot);
-        Map<Integer, List<TimeSlotStats.TimeSlotData>> statsByYear = 
-                convertToTimeSlotStatsByYear(ridesByYearAndTimeSlot);
-
-        return new TimeSlotStats(statsByMonth, statsByYear);
+    private void applyDelta(Ride ride, int sign, long dataVersion) {
+        statUpdates.execute(() -> {
+            if (aggregates.apply(ride, sign, dataVersion)) {
+                publish();
+            } else {
+                // Écriture manquée (ou reconstruction en cours) : on repart de la base
+                mainThread.execute(this::refreshStatistics);
+            }
+        });
     }
 
-    private Map<String, Map<String, List<Ride>>> groupRidesByMonthAndTimeSlot(List<Ride> rides) {
-        Map<String, Map<String, List<Ride>>> result = new HashMap<>();
-        for (Ride ride : rides) {
-            String timeSlot = getTimeSlotByDuration(ride.getStartHour(), ride.getEndHour());
-            LocalDate date = ride.getDate();
-            String monthKey = createMonthKey(date.getYear(), date.getMonthValue());
-            
-            result.computeIfAbsent(monthKey, k -> new HashMap<>())
-                    .computeIfAbsent(timeSlot, k -> new ArrayList<>())
-                    .add(ride);
+    /**
+     * Un import arrive en lots successifs, chacun dans sa transaction : leurs plages de dates sont cumulées
+     * et les mois concernés relus une seule fois, quand les lots cessent d'arriver.
+     */
+    private void queueMonths(RideChange change) {
+        if (pendingFrom == null) {
+            pendingFrom = change.getFrom();
+            pendingTo = change.getTo();
+            pendingFirstVersion = change.getDataVersion();
+        } else {
+            pendingFrom = change.getFrom().isBefore(pendingFrom) ? change.getFrom() : pendingFrom;
+            pendingTo = change.getTo().isAfter(pendingTo) ? change.getTo() : pendingTo;
         }
-        return result;
+        pendingLastVersion = change.getDataVersion();
+        monthsCoalescer.request();
     }
 
-    private Map<Integer, Map<String, List<Ride>>> groupRidesByYearAndTimeSlot(List<Ride> rides) {
-        Map<Integer, Map<String, List<Ride>>> result = new HashMap<>();
-        for (Ride ride : rides) {
-            String timeSlot = getTimeSlotByDuration(ride.getStartHour(), ride.getEndHour());
-            int year = ride.getDate().getYear();
-            
-            result.computeIfAbsent(year, k -> new HashMap<>())
-                    .computeIfAbsent(timeSlot, k -> new ArrayList<>())
-                    .add(ride);
+    private void recomputePendingMonths() {
+        if (pendingFrom == null) {
+            return;
         }
-        return result;
+        recomputeMonths(pendingFrom, pendingTo, pendingFirstVersion - 1, pendingLastVersion);
+        pendingFrom = null;
+        pendingTo = null;
     }
 
-    private Map<String, List<TimeSlotStats.TimeSlotData>> convertToTimeSlotStatsByMonth(
-            Map<String, Map<String, List<Ride>>> ridesByMonthAndTimeSlot) {
-        Map<String, List<TimeSlotStats.TimeSlotData>> statsByMonth = new LinkedHashMap<>();
-        
-        for (Map.Entry<String, Map<String, List<Ride>>> monthEntry : ridesByMonthAndTimeSlot.entrySet()) {
-            String monthKey = monthEntry.getKey();
-            int[] yearMonth = parseMonthKey(monthKey);
-            
-            List<TimeSlotStats.TimeSlotData> timeSlotDataList = convertTimeSlotRidesToStats(
-                    monthEntry.getValue(), yearMonth[1], yearMonth[0]);
-            sortTimeSlotStatsByAmountDescending(timeSlotDataList);
-            
-            statsByMonth.put(monthKey, timeSlotDataList);
-        }
-        return statsByMonth;
+    /**
+     * Relecture et remplacement se font dans la file des mises à jour : les deltas reçus après l'import
+     * attendent que ses mois soient remplacés, au lieu de passer avant.
+     *
+     * @param baseVersion version à laquelle les mois n'avaient pas encore été modifiés
+     * @param lastVersion version de la dernière écriture limitée à ces mois ; toute écriture lue au-delà
+     *                    peut toucher d'autres mois et impose une reconstruction complète
+     */
+    private void recomputeMonths(LocalDate from, LocalDate to, long baseVersion, long lastVersion) {
+        LocalDate firstDay = from.withDayOfMonth(1);
+        LocalDate lastDay = to.withDayOfMonth(to.lengthOfMonth());
+        statUpdates.execute(() -> {
+            try {
+                RideStatsSnapshot snapshot = repository.getStatsSnapshot(firstDay, lastDay);
+                boolean applied = snapshot.getVersion() == lastVersion && aggregates.replaceMonths(snapshot,
+                        RideEncoding.toAbsoluteMonth(firstDay.toEpochDay()),
+                        RideEncoding.toAbsoluteMonth(lastDay.toEpochDay()), baseVersion);
+                if (applied) {
+                    publish();
+                } else {
+                    mainThread.execute(this::refreshStatistics);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error recomputing statistics months", e);
+                mainThread.execute(this::refreshStatistics);
+            }
+        });
+    }
+
+    private void applyWipe(long dataVersion) {
+        statUpdates.execute(() -> {
+            if (aggregates.wipe(dataVersion)) {
+                publish();
+            } else {
+                mainThread.execute(this::refreshStatistics);
+            }
+        });
     }
 
-    private Map<Integer, List<TimeSlotStats.TimeSlotData>> convertToTimeSlotStatsByYear(
-            Map<Integer, Map<String, List<Ride>>> ridesByYearAndTimeSlot) {
-        Map<Integer, List<TimeSlotStats.TimeSlotData>> statsByYear = new LinkedHashMap<>();
-        
-        for (Map.Entry<Integer, Map<String, List<Ride>>> yearEntry : ridesByYearAndTimeSlot.entrySet()) {
-            int year = yearEntry.getKey();
-            List<TimeSlotStats.TimeSlotData> timeSlotDataList = convertTimeSlotRidesToStats(
-                    yearEntry.getValue(), 0, year);
-            sortTimeSlotStatsByAmountDescending(timeSlotDataList);
-            
-            statsByYear.put(year, timeSlotDataList);
-        }
-        return statsByYear;
+    /**
+     * Affiche immédiatement les dernières statistiques enregistrées. Si elles sont à jour de la base (même
+     * version des données, même découpage horaire, tendances du jour), la reconstruction complète est
+     * remise au premier besoin : écriture, autre plage de dates ou autre période de la carte de chaleur.
+     */
+    private void restoreSnapshot() {
+        diskIO.execute(() -> {
+            StatSnapshotFile.Snapshot snapshot = null;
+            long storedVersion = StatAggregateStore.NO_VERSION;
+            try {
+                snapshot = snapshotFile.read();
+                // Au démarrage la base n'est pas encore ouverte : sa version n'est connue qu'après ouverture
+                storedVersion = repository.loadDataVersion();
+            } catch (Exception e) {
+                Log.w(TAG, "Ignoring unreadable statistics snapshot", e);
+            }
+            StatSnapshotFile.Snapshot result = snapshot;
+            long version = storedVersion;
+            mainThread.execute(() -> onSnapshotRestored(result, version));
+        });
     }
 
-    private List<TimeSlotStats.TimeSlotData> convertTimeSlotRidesToStats(
-            Map<String, List<Ride>> timeSlotRidesMap, int month, int year) {
-        List<TimeSlotStats.TimeSlotData> timeSlotDataList = new ArrayList<>();
-        
-        for (Map.Entry<String, List<Ride>> timeSlotEntry : timeSlotRidesMap.entrySet()) {
-            String timeSlot = timeSlotEntry.getKey();
-            List<Ride> slotRides = timeSlotEntry.getValue();
-            
-            int rideCount = slotRides.size();
-            double totalAmount = calculateTotalAmount(slotRides);
-            
-            timeSlotDataList.add(new TimeSlotStats.TimeSlotData(timeSlot, month, year, rideCount, totalAmount));
+    /**
+     * @param storedVersion version des données lue dans la base au moment de la lecture de l'instantané
+     */
+    private void onSnapshotRestored(StatSnapshotFile.Snapshot snapshot, long storedVersion) {
+        restoring = false;
+        if (published) {
+            return;
+        }
+        if (snapshot == null || !aggregates.getClassifier().getId().equals(snapshot.getTimeSlotScheme())) {
+            // Plages horaires d'un autre découpage : rien à afficher
+            loadStatistics();
+            return;
+        }
+        totalStatsLiveData.setValue(snapshot.getTotalStats());
+        dayOfWeekStatsLiveData.setValue(snapshot.getDayOfWeekStats());
+        timeSlotStatsLiveData.setValue(snapshot.getTimeSlotStats());
+        heatmapLiveData.setValue(snapshot.getHeatmap());
+        trendStatsLiveData.setValue(snapshot.getTrendStats());
+        distributionStatsLiveData.setValue(snapshot.getDistributionStats());
+
+        LocalDate trendFirstDay = LocalDate.now().minusDays(StatAggregateStore.TREND_DAYS - 1);
+        // Une écriture arrivée depuis la lecture de la version la rend périmée, même si l'instantané y correspondait
+        if (snapshot.getDataVersion() != storedVersion || storedVersion != repository.getDataVersion()
+                || !trendFirstDay.equals(snapshot.getTrendStats().getFirstDay())) {
+            loadStatistics();
+            return;
+        }
+        restored = snapshot;
+        isLoading.setValue(false);
+        // Choix faits à l'écran pendant la lecture : servis par l'instantané s'il les contient
+        LocalDate[] range = selectedRange;
+        if (range != null) {
+            selectRange(range[0], range[1]);
+        }
+        String period = heatmapPeriod;
+        if (period != null) {
+            selectHeatmapPeriod(period);
         }
-        return timeSlotDataList;
     }
 
     /**
-     * Détermine la plage horaire d'une course en calculant le temps passé dans chaque plage
-     * et en choisissant celle où la course passe le plus de temps.
+     * Lance la reconstruction différée par un instantané à jour, si elle n'est pas déjà en cours.
      */
-    private String getTimeSlotByDuration(LocalTime startTime, LocalTime endTime) {
-        boolean crossesMidnight = endTime.isBefore(startTime) || endTime.equals(startTime);
-        
-        long[] durations = calculateDurationsInAllSlots(startTime, endTime, crossesMidnight);
-        
-        return findSlotWithMaxDuration(durations);
-    }
-    
-    private long[] calculateDurationsInAllSlots(LocalTime startTime, LocalTime endTime, boolean crossesMidnight) {
-        long[] durations = new long[4];
-        
-        if (crossesMidnight) {
-            calculateDurationsCrossingMidnight(startTime, endTime, durations);
-        } else {
-            calculateDurationsSameDay(startTime, endTime, durations);
+    private void ensureStore() {
+        restored = null;
+        if (!Boolean.TRUE.equals(isLoading.getValue())) {
+            loadStatistics();
         }
-        
-        return durations;
-    }
-    
-    private void calculateDurationsSameDay(LocalTime startTime, LocalTime endTime, long[] durations) {
-        durations[0] = calculateDurationInSlot(startTime, endTime, SLOT_1_START, SLOT_1_END);
-        durations[1] = calculateDurationInSlot(startTime, endTime, SLOT_2_START, SLOT_2_END);
-        durations[2] = calculateDurationInSlot(startTime, endTime, SLOT_3_START, SLOT_3_END);
-        durations[3] = calculateDurationInSlot(startTime, endTime, SLOT_4_START, SLOT_4_END);
     }
-    
-    private void calculateDurationsCrossingMidnight(LocalTime startTime, LocalTime endTime, long[] durations) {
-        LocalTime endOfDay = LocalTime.of(23, 59, 59);
-        LocalTime startOfDay = LocalTime.of(0, 0);
-        
-        // Durée dans la journée du début
-        durations[0] = calculateDurationInSlot(startTime, endOfDay, SLOT_1_START, SLOT_1_END);
-        durations[1] = calculateDurationInSlot(startTime, endOfDay, SLOT_2_START, SLOT_2_END);
-        durations[2] = calculateDurationInSlot(startTime, endOfDay, SLOT_3_START, SLOT_3_END);
-        durations[3] = calculateDurationInSlot(startTime, endOfDay, SLOT_4_START, SLOT_4_END);
-        
-        // Durée dans la journée suivante
-        durations[0] += calculateDurationInSlot(startOfDay, endTime, SLOT_1_START, SLOT_1_END);
-        durations[1] += calculateDurationInSlot(startOfDay, endTime, SLOT_2_START, SLOT_2_END);
-        durations[2] += calculateDurationInSlot(startOfDay, endTime, SLOT_3_START, SLOT_3_END);
-    }
-    
-    private String findSlotWithMaxDuration(long[] durations) {
-        long maxDuration = Math.max(Math.max(durations[0], durations[1]), 
-                                   Math.max(durations[2], durations[3]));
-        
-        if (maxDuration == durations[0]) {
-            return SLOT_1_LABEL;
-        } else if (maxDuration == durations[1]) {
-            return SLOT_2_LABEL;
-        } else if (maxDuration == durations[2]) {
-            return SLOT_3_LABEL;
-        } else {
-            return SLOT_4_LABEL;
-        }
-    }
-    
+
     /**
-     * Calcule le temps (en minutes) qu'une course passe dans une plage horaire donnée.
+     * Reconstruction complète : instantané lu sur le pool disque, agrégation sur le pool de calcul.
+     * Appelé sur le thread UI ; une reconstruction encore en cours devient obsolète et son résultat est ignoré.
      */
-    private long calculateDurationInSlot(LocalTime startTime, LocalTime endTime, 
-                                        LocalTime slotStart, LocalTime slotEnd) {
-        if (endTime.isBefore(startTime) || endTime.equals(startTime)) {
-            return 0;
-        }
-        
-        LocalTime effectiveStart = clampTimeToSlot(startTime, slotStart, slotEnd);
-        LocalTime effectiveEnd = clampTimeToSlot(endTime, slotStart, slotEnd);
-        
-        if (!effectiveEnd.isAfter(effectiveStart)) {
-            return 0;
+    private void loadStatistics() {
+        if (restoring) {
+            // onSnapshotRestored décidera
+            return;
         }
-        
-        return (effectiveEnd.toSecondOfDay() - effectiveStart.toSecondOfDay()) / 60;
-    }
-    
-    private LocalTime clampTimeToSlot(LocalTime time, LocalTime slotStart, LocalTime slotEnd) {
-        if (time.isBefore(slotStart)) {
-            return slotStart;
+        long dataVersion = repository.getDataVersion();
+        if (dataVersion == aggregates.getVersion()
+                || (restored != null && restored.getDataVersion() == dataVersion)) {
+            return;
         }
-        return time.isAfter(slotEnd) ? slotEnd : time;
-    }
+        restored = null;
 
-    // Helper methods
-    private String createMonthKey(int year, int month) {
-        return year + MONTH_KEY_SEPARATOR + String.format(MONTH_KEY_FORMAT, month);
+        long currentGeneration = generation.incrementAndGet();
+        if (inFlight != null) {
+            inFlight.cancel(false);
+        }
+        isLoading.setValue(true);
+        inFlight = diskIO.submit(() -> {
+            try {
+                RideStatsSnapshot snapshot = repository.getStatsSnapshot();
+                if (isStale(currentGeneration)) {
+                    return;
+                }
+                computation.execute(() -> rebuildStatistics(snapshot, currentGeneration));
+            } catch (Exception e) {
+                Log.e(TAG, "Error loading statistics", e);
+                isLoading.postValue(false);
+            }
+        });
+    }
+
+    private void rebuildStatistics(RideStatsSnapshot snapshot, long computationGeneration) {
+        try {
+            if (isStale(computationGeneration)) {
+                return;
+            }
+            aggregates.rebuild(snapshot);
+            publish();
+            isLoading.postValue(false);
+        } catch (Exception e) {
+            Log.e(TAG, "Error computing statistics", e);
+            isLoading.postValue(false);
+        }
     }
 
-    private int[] parseMonthKey(String monthKey) {
-        String[] parts = monthKey.split(MONTH_KEY_SEPARATOR);
-        return new int[]{Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    private void publish() {
+        StatSnapshotFile.Snapshot snapshot;
+        // Sous le verrou du store : deux publications concurrentes ne peuvent pas s'inverser
+        synchronized (aggregates) {
+            published = true;
+            LocalDate[] range = selectedRange;
+            snapshot = new StatSnapshotFile.Snapshot(aggregates.getVersion(), aggregates.getClassifier().getId(),
+                    aggregates.totalStats(), aggregates.dayOfWeekStats(), aggregates.timeSlotStats(),
+                    aggregates.heatmap(heatmapPeriod), aggregates.trendStats(LocalDate.now()),
+                    aggregates.distributionStats(),
+                    range != null ? aggregates.rangeStats(range[0], range[1]) : null);
+            totalStatsLiveData.postValue(snapshot.getTotalStats());
+            dayOfWeekStatsLiveData.postValue(snapshot.getDayOfWeekStats());
+            timeSlotStatsLiveData.postValue(snapshot.getTimeSlotStats());
+            heatmapLiveData.postValue(snapshot.getHeatmap());
+            trendStatsLiveData.postValue(snapshot.getTrendStats());
+            distributionStatsLiveData.postValue(snapshot.getDistributionStats());
+            if (range != null) {
+                rangeStatsLiveData.postValue(snapshot.getRangeStats());
+            }
+        }
+        saveSnapshot(snapshot);
     }
 
-    private double calculateTotalAmount(List<Ride> rides) {
-        return rides.stream().mapToDouble(Ride::getPrice).sum();
+    private void saveSnapshot(StatSnapshotFile.Snapshot snapshot) {
+        diskIO.execute(() -> {
+            try {
+                snapshotFile.write(snapshot);
+            } catch (Exception e) {
+                Log.w(TAG, "Could not save statistics snapshot", e);
+            }
+        });
     }
 
-    private void sortStatsByAmountDescending(List<DayOfWeekStats.DayStats> statsList) {
-        statsList.sort((a, b) -> Double.compare(b.getTotalAmount(), a.getTotalAmount()));
+    private boolean isStale(long computationGeneration) {
+        return computationGeneration != generation.get();
     }
 
-    private void sortTimeSlotStatsByAmountDescending(List<TimeSlotStats.TimeSlotData> statsList) {
-        statsList.sort((a, b) -> Double.compare(b.getTotalAmount(), a.getTotalAmount()));
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        repository.removeListener(changeListener);
+        refreshCoalescer.cancel();
+        monthsCoalescer.cancel();
+        generation.incrementAndGet();
     }
 }
@@ -0,0 +1,166 @@
+package com.driveup.ui.stat;
+
+import com.driveup.RideEncoding;
+
+import java.util.Arrays;
+
+/**
+ * Plages horaires des statistiques : une course est rangée dans la plage où elle passe le plus de temps.
+ * <p>
+ * Un découpage est une suite de segments contigus couvrant la journée, chacun rattaché à une plage ;
+ * une plage peut regrouper plusieurs segments (heures de pointe du matin et du soir, par exemple).
+ * Le temps passé dans chaque plage est lu dans une table de minutes cumulées calculée une fois pour
+ * toutes, sans aucune allocation par course.
+ */
+final class TimeSlotClassifier {
+
+    private static final int MINUTES_PER_HOUR = 60;
+
+    /**
+     * Découpage par défaut en quatre plages de six heures.
+     */
+    static final TimeSlotClassifier QUARTERS = new TimeSlotClassifier("quarters",
+            new int[]{0, 6 * MINUTES_PER_HOUR, 12 * MINUTES_PER_HOUR, 18 * MINUTES_PER_HOUR},
+            new int[]{0, 1, 2, 3},
+            new String[]{"00:00-06:00", "06:00-12:00", "12:00-18:00", "18:00-00:00"});
+
+    static final TimeSlotClassifier HOURLY = hourly();
+
+    /**
+     * Heures de pointe (7h-9h30 et 16h30-19h30) contre heures creuses.
+     */
+    static final TimeSlotClassifier RUSH_HOURS = new TimeSlotClassifier("rush_hours",
+            new int[]{0, 7 * MINUTES_PER_HOUR, 9 * MINUTES_PER_HOUR + 30,
+                    16 * MINUTES_PER_HOUR + 30, 19 * MINUTES_PER_HOUR + 30},
+            new int[]{1, 0, 1, 0, 1},
+            new String[]{"Heures de pointe", "Heures creuses"});
+
+    private final String id;
+    private final int[] segmentStarts;
+    private final int[] segmentSlots;
+    private final String[] labels;
+    // Minutes cumulées de chaque plage au début de chaque segment : [segment][plage], plus une ligne pour minuit
+    private final int[] cumulativeMinutes;
+
+    /**
+     * @param id            identifiant du découpage, enregistré dans les préférences et les instantanés
+     * @param segmentStarts début de chaque segment en minutes, strictement croissant et commençant à 0
+     * @param segmentSlots  plage de chaque segment, indice dans {@code labels}
+     */
+    TimeSlotClassifier(String id, int[] segmentStarts, int[] segmentSlots, String[] labels) {
+        if (segmentStarts.length == 0 || segmentStarts[0] != 0 || segmentStarts.length != segmentSlots.length) {
+            throw new IllegalArgumentException("Découpage horaire invalide");
+        }
+        for (int i = 1; i < segmentStarts.length; i++) {
+            if (segmentStarts[i] <= segmentStarts[i - 1] || segmentStarts[i] >= RideEncoding.MINUTES_PER_DAY) {
+                throw new IllegalArgumentException("Découpage horaire invalide");
+            }
+        }
+        for (int slot : segmentSlots) {
+            if (slot < 0 || slot >= labels.length) {
+                throw new IllegalArgumentException("Plage horaire inconnue : " + slot);
+            }
+        }
+        this.id = id;
+        this.segmentStarts = segmentStarts.clone();
+        this.segmentSlots = segmentSlots.clone();
+        this.labels = labels.clone();
+
+        int slotCount = labels.length;
+        cumulativeMinutes = new int[(segmentStarts.length + 1) * slotCount];
+        for (int segment = 0; segment < segmentStarts.length; segment++) {
+            int row = segment * slotCount;
+            System.arraycopy(cumulativeMinutes, row, cumulativeMinutes, row + slotCount, slotCount);
+            cumulativeMinutes[row + slotCount + segmentSlots[segment]] += segmentEnd(segment) - segmentStarts[segment];
+        }
+    }
+
+    private static TimeSlotClassifier hourly() {
+        int[] starts = new int[24];
+        int[] slots = new int[24];
+        String[] labels = new String[24];
+        for (int hour = 0; hour < 24; hour++) {
+            starts[hour] = hour * MINUTES_PER_HOUR;
+            slots[hour] = hour;
+            labels[hour] = twoDigits(hour) + ":00-" + twoDigits((hour + 1) % 24) + ":00";
+        }
+        return new TimeSlotClassifier("hourly", starts, slots, labels);
+    }
+
+    /**
+     * Découpage prédéfini portant cet identifiant ; {@link #QUARTERS} si l'identifiant est inconnu ou null.
+     */
+    static TimeSlotClassifier forId(String id) {
+        if (HOURLY.id.equals(id)) {
+            return HOURLY;
+        }
+        if (RUSH_HOURS.id.equals(id)) {
+            return RUSH_HOURS;
+        }
+        return QUARTERS;
+    }
+
+    private static String twoDigits(int value) {
+        return value < 10 ? "0" + value : String.valueOf(value);
+    }
+
+    String getId() {
+        return id;
+    }
+
+    int getSlotCount() {
+        return labels.length;
+    }
+
+    String getLabel(int slot) {
+        return labels[slot];
+    }
+
+    /**
+     * Détermine la plage horaire d'une course à partir de ses minutes de début et de fin dans la journée.
+     * Une fin antérieure ou égale au début signifie que la course se termine le lendemain.
+     * En cas d'égalité, la première plage l'emporte.
+     *
+     * @return l'indice de la plage, entre 0 et {@link #getSlotCount()} exclu
+     */
+    int classify(int startMinute, int endMinute) {
+        boolean crossesMidnight = endMinute <= startMinute;
+        int startSegment = segmentOf(startMinute);
+        int endSegment = segmentOf(endMinute);
+        int midnightRow = segmentStarts.length * labels.length;
+
+        int bestSlot = 0;
+        int bestMinutes = -1;
+        for (int slot = 0; slot < labels.length; slot++) {
+            int minutes = minutesBefore(endSegment, endMinute, slot) - minutesBefore(startSegment, startMinute, slot);
+            if (crossesMidnight) {
+                minutes += cumulativeMinutes[midnightRow + slot];
+            }
+            if (minutes > bestMinutes) {
+                bestMinutes = minutes;
+                bestSlot = slot;
+            }
+        }
+        return bestSlot;
+    }
+
+    /**
+     * Minutes passées dans {@code slot} entre minuit et {@code minute}.
+     */
+    private int minutesBefore(int segment, int minute, int slot) {
+        int minutes = cumulativeMinutes[segment * labels.length + slot];
+        if (segmentSlots[segment] == slot) {
+            minutes += minute - segmentStarts[segment];
+        }
+        return minutes;
+    }
+
+    private int segmentOf(int minute) {
+        int index = Arrays.binarySearch(segmentStarts, minute);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private int segmentEnd(int segment) {
+        return segment + 1 < segmentStarts.length ? segmentStarts[segment + 1] : RideEncoding.MINUTES_PER_DAY;
+    }
+}
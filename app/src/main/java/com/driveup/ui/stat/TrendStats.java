@@ -0,0 +1,18 @@
+package com.driveup.ui.stat;
+
+import java.time.LocalDate;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendStats {
+    private LocalDate firstDay; // Jour de l'indice 0 des séries, la dernière valeur est celle d'aujourd'hui
+    private double[] dailyRevenueShortAverage; // Revenu moyen par jour sur les 7 derniers jours
+    private double[] dailyRevenueLongAverage; // Revenu moyen par jour sur les 30 derniers jours
+    private double[] dailyRidesShortAverage; // Courses par jour sur les 7 derniers jours
+    private double[] dailyRidesLongAverage; // Courses par jour sur les 30 derniers jours
+}
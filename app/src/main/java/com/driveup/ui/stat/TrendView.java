@@ -0,0 +1,103 @@
+package com.driveup.ui.stat;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.driveup.R;
+
+/**
+ * Courbes du revenu moyen par jour sur 7 jours (trait plein) et sur 30 jours (trait fin).
+ * Les objets de dessin sont créés une fois ; {@link #onDraw} ne fait que relire les séries.
+ */
+public class TrendView extends View {
+
+    private static final float SHORT_STROKE_DP = 2.5f;
+    private static final float LONG_STROKE_DP = 1.5f;
+    private static final float HEIGHT_DP = 120f;
+
+    private final Paint shortPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint longPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint axisPaint = new Paint();
+    private final Path path = new Path();
+    private final float preferredHeight;
+
+    @Nullable
+    private TrendStats trend;
+
+    public TrendView(Context context) {
+        this(context, null);
+    }
+
+    public TrendView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        preferredHeight = HEIGHT_DP * density;
+        shortPaint.setStyle(Paint.Style.STROKE);
+        shortPaint.setStrokeWidth(SHORT_STROKE_DP * density);
+        shortPaint.setColor(ContextCompat.getColor(context, R.color.purple_500));
+        longPaint.setStyle(Paint.Style.STROKE);
+        longPaint.setStrokeWidth(LONG_STROKE_DP * density);
+        longPaint.setColor(ContextCompat.getColor(context, R.color.teal_700));
+        axisPaint.setColor(Color.parseColor("#E0E0E0"));
+    }
+
+    public void setTrend(@Nullable TrendStats trend) {
+        this.trend = trend;
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int height = (int) (getPaddingTop() + getPaddingBottom() + preferredHeight);
+        setMeasuredDimension(MeasureSpec.getSize(widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        float bottom = getHeight() - getPaddingBottom();
+        canvas.drawLine(getPaddingLeft(), bottom, getWidth() - getPaddingRight(), bottom, axisPaint);
+        if (trend == null) {
+            return;
+        }
+        double[] shortSeries = trend.getDailyRevenueShortAverage();
+        double[] longSeries = trend.getDailyRevenueLongAverage();
+        double max = 0;
+        for (int i = 0; i < shortSeries.length; i++) {
+            max = Math.max(max, Math.max(shortSeries[i], longSeries[i]));
+        }
+        if (max <= 0) {
+            return;
+        }
+        drawSeries(canvas, longSeries, max, longPaint);
+        drawSeries(canvas, shortSeries, max, shortPaint);
+    }
+
+    private void drawSeries(Canvas canvas, double[] series, double max, Paint paint) {
+        float left = getPaddingLeft();
+        float top = getPaddingTop();
+        float width = getWidth() - getPaddingRight() - left;
+        float height = getHeight() - getPaddingBottom() - top;
+        float step = series.length > 1 ? width / (series.length - 1) : 0;
+
+        path.rewind();
+        for (int i = 0; i < series.length; i++) {
+            float x = left + i * step;
+            float y = top + height - (float) (series[i] / max) * height;
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+        canvas.drawPath(path, paint);
+    }
+}
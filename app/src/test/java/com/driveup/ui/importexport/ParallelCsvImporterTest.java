@@ -0,0 +1,173 @@
+package com.driveup.ui.importexport;
+
+import com.driveup.ui.ride.Ride;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+public class ParallelCsvImporterTest {
+
+    private static final int READERS = 2;
+
+    private final ExecutorService readers = Executors.newFixedThreadPool(READERS);
+    private final List<List<Ride>> writes = new ArrayList<>();
+    private final Set<Thread> writerThreads = new HashSet<>();
+
+    @After
+    public void tearDown() {
+        readers.shutdownNow();
+    }
+
+    @Test
+    public void importsEveryFileFromTheCallingThreadOnly() {
+        ParallelCsvImporter importer = new ParallelCsvImporter(readers, READERS, 8, this::write);
+
+        List<FileImportResult> results = importer.importAll(Arrays.asList(
+                source("janvier.csv", 1, 10),
+                source("fevrier.csv", 2, 25),
+                source("mars.csv", 3, 0),
+                source("avril.csv", 4, 3)));
+
+        assertEquals(Arrays.asList("janvier.csv", "fevrier.csv", "mars.csv", "avril.csv"),
+                Arrays.asList(results.get(0).getFileName(), results.get(1).getFileName(),
+                        results.get(2).getFileName(), results.get(3).getFileName()));
+        assertEquals(10, results.get(0).getImportedCount());
+        assertEquals(25, results.get(1).getImportedCount());
+        assertEquals(0, results.get(2).getImportedCount());
+        assertEquals(3, results.get(3).getImportedCount());
+        for (FileImportResult result : results) {
+            assertTrue(result.isSuccessful());
+            assertEquals(0, result.getSkippedCount());
+        }
+        assertEquals(Set.of(Thread.currentThread()), writerThreads);
+    }
+
+    @Test
+    public void mergesFileTailsIntoFullBatches() {
+        ParallelCsvImporter importer = new ParallelCsvImporter(readers, READERS, 8, this::write);
+
+        importer.importAll(Arrays.asList(source("a.csv", 1, 5), source("b.csv", 2, 5), source("c.csv", 3, 5)));
+
+        int total = 0;
+        for (int i = 0; i < writes.size(); i++) {
+            total += writes.get(i).size();
+            if (i < writes.size() - 1) {
+                assertTrue(writes.get(i).size() >= 8);
+            }
+        }
+        assertEquals(15, total);
+        // Trois fins de fichier de 5 courses : 10 courses puis 5, au lieu de trois écritures
+        assertEquals(2, writes.size());
+    }
+
+    @Test
+    public void neverWritesMoreThanChunkSize() {
+        ParallelCsvImporter importer = new ParallelCsvImporter(readers, READERS, 8, this::write);
+
+        importer.importAll(Arrays.asList(source("a.csv", 1, 7), source("b.csv", 2, 6), source("c.csv", 3, 13)));
+
+        int total = 0;
+        for (List<Ride> batch : writes) {
+            assertTrue(batch.size() <= 8);
+            total += batch.size();
+        }
+        assertEquals(26, total);
+        // Lots reçus répartis : 8 + 8 + 8 + 2
+        assertEquals(4, writes.size());
+    }
+
+    @Test
+    public void keepsRidesReadBeforeAnError() {
+        ParallelCsvImporter importer = new ParallelCsvImporter(readers, READERS, 8, this::write);
+        String csv = "ID,Date,Heure Début,Heure Fin,Prix\n"
+                + "1,2024-01-01,10:00,10:30,10\n"
+                + "2,2024-01-02,10:00,10:30,11\n"
+                + "x,pas une date,10:00,10:30,12\n"
+                + "3,2024-01-03,10:00,10:30,13\n";
+        ParallelCsvImporter.Source failing = new ParallelCsvImporter.Source("coupe.csv",
+                () -> new BufferedReader(new FailingReader(csv), 16));
+
+        List<FileImportResult> results = importer.importAll(Arrays.asList(failing, source("ok.csv", 2, 4)));
+
+        FileImportResult failed = results.get(0);
+        assertFalse(failed.isSuccessful());
+        assertEquals("Lecture interrompue", failed.getError());
+        assertEquals(3, failed.getImportedCount());
+        assertEquals(1, failed.getSkippedCount());
+        assertTrue(results.get(1).isSuccessful());
+        assertEquals(4, results.get(1).getImportedCount());
+        int total = 0;
+        for (List<Ride> batch : writes) {
+            total += batch.size();
+        }
+        assertEquals(7, total);
+    }
+
+    @Test(timeout = 10_000)
+    public void readerCrashStillEndsItsSource() {
+        ParallelCsvImporter importer = new ParallelCsvImporter(readers, READERS, 8, this::write);
+        ParallelCsvImporter.Source crashing = new ParallelCsvImporter.Source("plante.csv", () -> {
+            throw new AssertionError("lecteur planté");
+        });
+
+        List<FileImportResult> results = importer.importAll(Arrays.asList(crashing, source("ok.csv", 2, 4)));
+
+        assertEquals("Lecture abandonnée", results.get(0).getError());
+        assertEquals(0, results.get(0).getImportedCount());
+        assertTrue(results.get(1).isSuccessful());
+        assertEquals(4, results.get(1).getImportedCount());
+    }
+
+    /**
+     * Rend {@code content} puis échoue au lieu de signaler la fin du fichier.
+     */
+    private static class FailingReader extends Reader {
+        private final StringReader content;
+
+        FailingReader(String content) {
+            this.content = new StringReader(content);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            int read = content.read(buffer, offset, length);
+            if (read < 0) {
+                throw new IOException("Lecture interrompue");
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            content.close();
+        }
+    }
+
+    private void write(List<Ride> batch) {
+        writerThreads.add(Thread.currentThread());
+        writes.add(new ArrayList<>(batch));
+    }
+
+    private static ParallelCsvImporter.Source source(String name, int month, int rides) {
+        StringBuilder csv = new StringBuilder("ID,Date,Heure Début,Heure Fin,Prix\n");
+        for (int i = 0; i < rides; i++) {
+            csv.append(i).append(",2024-").append(month < 10 ? "0" : "").append(month).append('-')
+                    .append(i % 28 < 9 ? "0" : "").append(i % 28 + 1).append(",10:00,10:30,").append(10 + i).append('\n');
+        }
+        return new ParallelCsvImporter.Source(name, () -> new BufferedReader(new StringReader(csv.toString())));
+    }
+}
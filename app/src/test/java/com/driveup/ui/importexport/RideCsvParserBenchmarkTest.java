@@ -0,0 +1,136 @@
+package com.driveup.ui.importexport;
+
+import com.driveup.RideEncoding;
+import com.driveup.ui.ride.Ride;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Débit de {@link RideCsvParser} comparé à l'ancienne lecture (split, trim, DateTimeFormatter,
+ * Double.parseDouble). Les chiffres sont journalisés, pas vérifiés : seule l'égalité des résultats l'est.
+ * <p>
+ * Hors de la suite par défaut : lancé seulement avec {@code ./gradlew test -Pbenchmark}.
+ */
+public class RideCsvParserBenchmarkTest {
+
+    private static final int LINES = 200_000;
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final Logger LOG = Logger.getLogger(RideCsvParserBenchmarkTest.class.getName());
+
+    @Before
+    public void requireBenchmarkRun() {
+        assumeTrue("Mesure de débit : lancer avec -Pbenchmark", Boolean.getBoolean("driveup.benchmark"));
+    }
+
+    @Test
+    public void compareWithSplitParser() {
+        List<String> lines = sampleLines(LINES, 7);
+
+        long checksum = 0;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            checksum += runCharParser(lines) + runSplitParser(lines);
+        }
+        long charNanos = 0;
+        long splitNanos = 0;
+        for (int round = 0; round < MEASURED_ROUNDS; round++) {
+            long start = System.nanoTime();
+            long charSum = runCharParser(lines);
+            charNanos += System.nanoTime() - start;
+            start = System.nanoTime();
+            long splitSum = runSplitParser(lines);
+            splitNanos += System.nanoTime() - start;
+            assertEquals(splitSum, charSum);
+            checksum += charSum;
+        }
+        assertNotEquals(0, checksum);
+
+        LOG.info(String.format(Locale.ROOT, "RideCsvParser : %.0f lignes/s, split : %.0f lignes/s (x%.1f)",
+                linesPerSecond(charNanos), linesPerSecond(splitNanos), (double) splitNanos / charNanos));
+    }
+
+    private static double linesPerSecond(long nanos) {
+        return (double) LINES * MEASURED_ROUNDS * 1e9 / nanos;
+    }
+
+    private static long runCharParser(List<String> lines) {
+        RideCsvParser parser = new RideCsvParser();
+        long sum = 0;
+        for (String line : lines) {
+            if (parser.parse(line) == RideCsvParser.Result.OK) {
+                sum += checksum(parser.getEpochDay(), parser.getStartMinute(), parser.getEndMinute(),
+                        parser.getPriceCents());
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Lecture remplacée par {@link RideCsvParser}, telle qu'elle était dans ImportExportServiceImpl.
+     */
+    private static long runSplitParser(List<String> lines) {
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+        long sum = 0;
+        for (String line : lines) {
+            String[] values = line.split(",");
+            int first = values.length == 5 ? 1 : 0;
+            if (values.length != 5 && values.length != 4) {
+                continue;
+            }
+            try {
+                Ride ride = new Ride();
+                ride.setDate(LocalDate.parse(values[first].trim(), dateFormatter));
+                ride.setStartHour(LocalTime.parse(values[first + 1].trim(), timeFormatter));
+                ride.setEndHour(LocalTime.parse(values[first + 2].trim(), timeFormatter));
+                ride.setPrice(Double.parseDouble(values[first + 3].trim()));
+                sum += checksum(ride.getDate().toEpochDay(), RideEncoding.toMinuteOfDay(ride.getStartHour()),
+                        RideEncoding.toMinuteOfDay(ride.getEndHour()), RideEncoding.toCents(ride.getPrice()));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                // Ligne ignorée, comme à l'import
+            }
+        }
+        return sum;
+    }
+
+    private static long checksum(long epochDay, int startMinute, int endMinute, long cents) {
+        return epochDay * 31 + startMinute * 17L + endMinute * 13L + cents;
+    }
+
+    /**
+     * Lignes au format d'export courant, une sur cent invalide ; prix à deux décimales au plus,
+     * que les deux lectures arrondissent de la même façon.
+     */
+    private static List<String> sampleLines(int count, long seed) {
+        Random random = new Random(seed);
+        LocalDate firstDay = LocalDate.of(2019, 1, 1);
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (i % 100 == 99) {
+                lines.add(i + ",2024-02-30,25:00,10:00,abc");
+                continue;
+            }
+            LocalDate date = firstDay.plusDays(random.nextInt(2000));
+            int start = random.nextInt(RideEncoding.MINUTES_PER_DAY);
+            int end = (start + 5 + random.nextInt(120)) % RideEncoding.MINUTES_PER_DAY;
+            double price = RideEncoding.fromCents(300 + random.nextInt(10_000));
+            lines.add(i + "," + date + "," + RideEncoding.toLocalTime(start) + ","
+                    + RideEncoding.toLocalTime(end) + "," + price);
+        }
+        return lines;
+    }
+}
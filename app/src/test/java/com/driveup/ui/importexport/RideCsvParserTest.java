@@ -0,0 +1,107 @@
+package com.driveup.ui.importexport;
+
+import com.driveup.RideEncoding;
+import com.driveup.ui.ride.Ride;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import static org.junit.Assert.*;
+
+public class RideCsvParserTest {
+
+    private final RideCsvParser parser = new RideCsvParser();
+
+    @Test
+    public void readsCurrentFormatAndIgnoresId() {
+        assertEquals(RideCsvParser.Result.OK, parser.parse("42,2024-02-29,08:05,23:59,12.5"));
+
+        assertEquals(LocalDate.of(2024, 2, 29).toEpochDay(), parser.getEpochDay());
+        assertEquals(8 * 60 + 5, parser.getStartMinute());
+        assertEquals(23 * 60 + 59, parser.getEndMinute());
+        assertEquals(1250, parser.getPriceCents());
+    }
+
+    @Test
+    public void readsLegacyFormatWithoutId() {
+        assertEquals(RideCsvParser.Result.OK, parser.parse("1999-12-31,00:00,01:30,7"));
+
+        Ride ride = parser.toRide();
+        assertNull(ride.getId());
+        assertEquals(LocalDate.of(1999, 12, 31), ride.getDate());
+        assertEquals(LocalTime.of(0, 0), ride.getStartHour());
+        assertEquals(LocalTime.of(1, 30), ride.getEndHour());
+        assertEquals(7.0, ride.getPrice(), 0);
+    }
+
+    @Test
+    public void acceptsQuotedAndPaddedFields() {
+        assertEquals(RideCsvParser.Result.OK,
+                parser.parse("\"a,\"\"b\"\"\" , \"2023-06-01\" ,  10:00 ,\"11:15\", 18.40 "));
+
+        assertEquals(LocalDate.of(2023, 6, 1).toEpochDay(), parser.getEpochDay());
+        assertEquals(10 * 60, parser.getStartMinute());
+        assertEquals(11 * 60 + 15, parser.getEndMinute());
+        assertEquals(1840, parser.getPriceCents());
+    }
+
+    @Test
+    public void trimsTabsAndCarriageReturnsLikeStringTrim() {
+        assertEquals(RideCsvParser.Result.OK, parser.parse("7,\t2023-06-01\t,10:00\t, 11:15,18.40\r"));
+
+        assertEquals(LocalDate.of(2023, 6, 1).toEpochDay(), parser.getEpochDay());
+        assertEquals(11 * 60 + 15, parser.getEndMinute());
+        assertEquals(1840, parser.getPriceCents());
+        assertEquals(RideCsvParser.Result.OK, parser.parse("\"2023-06-01\"\t,10:00,11:15,\"3\"\r"));
+        assertEquals(300, parser.getPriceCents());
+    }
+
+    @Test
+    public void ignoresTrailingEmptyFieldsLikeStringSplit() {
+        // "a,b,c,d,".split(",") donne 4 colonnes : ancien format sans ID
+        assertEquals(RideCsvParser.Result.OK, parser.parse("2024-01-01,10:00,11:00,5,"));
+        assertEquals(500, parser.getPriceCents());
+        assertEquals(RideCsvParser.Result.OK, parser.parse("1,2024-01-01,10:00,11:00,6,,"));
+        assertEquals(600, parser.getPriceCents());
+        assertEquals(RideCsvParser.Result.WRONG_COLUMN_COUNT, parser.parse("2023-01-01,10:00,11:00,"));
+        // Un champ fait de blancs n'est pas vide pour split : il compte
+        assertEquals(RideCsvParser.Result.WRONG_COLUMN_COUNT, parser.parse("1,2024-01-01,10:00,11:00,6, "));
+    }
+
+    @Test
+    public void roundsPriceToNearestCent() {
+        assertEquals(RideCsvParser.Result.OK, parser.parse("2024-01-01,10:00,11:00,9.995"));
+        assertEquals(1000, parser.getPriceCents());
+        assertEquals(RideCsvParser.Result.OK, parser.parse("2024-01-01,10:00,11:00,.5"));
+        assertEquals(50, parser.getPriceCents());
+        assertEquals(RideCsvParser.Result.OK, parser.parse("2024-01-01,10:00,11:00,-3.214"));
+        assertEquals(-321, parser.getPriceCents());
+    }
+
+    @Test
+    public void reportsInvalidRowsWithoutThrowing() {
+        assertEquals(RideCsvParser.Result.WRONG_COLUMN_COUNT, parser.parse(""));
+        assertEquals(RideCsvParser.Result.WRONG_COLUMN_COUNT, parser.parse("2024-01-01,10:00,11:00"));
+        assertEquals(RideCsvParser.Result.WRONG_COLUMN_COUNT, parser.parse("1,2024-01-01,10:00,11:00,5,x"));
+        assertEquals(RideCsvParser.Result.UNTERMINATED_QUOTE, parser.parse("\"2024-01-01,10:00,11:00,5"));
+        assertEquals(RideCsvParser.Result.BAD_DATE, parser.parse("2023-02-29,10:00,11:00,5"));
+        assertEquals(RideCsvParser.Result.BAD_DATE, parser.parse("2023-13-01,10:00,11:00,5"));
+        assertEquals(RideCsvParser.Result.BAD_DATE, parser.parse("2023/01/01,10:00,11:00,5"));
+        assertEquals(RideCsvParser.Result.BAD_DATE, parser.parse("\"2023-01-01\"x,10:00,11:00,5"));
+        assertEquals(RideCsvParser.Result.BAD_TIME, parser.parse("2023-01-01,24:00,11:00,5"));
+        assertEquals(RideCsvParser.Result.BAD_TIME, parser.parse("2023-01-01,10:00,9:30,5"));
+        assertEquals(RideCsvParser.Result.BAD_PRICE, parser.parse("2023-01-01,10:00,11:00, "));
+        assertEquals(RideCsvParser.Result.BAD_PRICE, parser.parse("2023-01-01,10:00,11:00,1e3"));
+        assertEquals(RideCsvParser.Result.BAD_PRICE, parser.parse("2023-01-01,10:00,11:00,12.5."));
+    }
+
+    @Test
+    public void epochDayMatchesLocalDate() {
+        for (LocalDate date = LocalDate.of(1899, 1, 1); date.getYear() < 2101; date = date.plusDays(1)) {
+            assertEquals(date.toString(), date.toEpochDay(),
+                    RideEncoding.toEpochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.driveup.ui.importexport;
+
+import com.driveup.RideEncoding;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RideCsvWriterTest {
+
+    @Test
+    public void writesSameLinesAsFormatterBasedExport() throws IOException {
+        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+        Random random = new Random(11);
+        for (int i = 0; i < 20_000; i++) {
+            long id = random.nextInt(Integer.MAX_VALUE);
+            LocalDate date = LocalDate.of(1990, 1, 1).plusDays(random.nextInt(20_000));
+            LocalTime start = RideEncoding.toLocalTime(random.nextInt(RideEncoding.MINUTES_PER_DAY));
+            LocalTime end = RideEncoding.toLocalTime(random.nextInt(RideEncoding.MINUTES_PER_DAY));
+            long cents = random.nextInt(1_000_000);
+
+            String expected = id + "," + date.format(dateFormatter) + "," + start.format(timeFormatter) + ","
+                    + end.format(timeFormatter) + "," + RideEncoding.fromCents(cents) + "\n";
+            assertEquals(expected, line(id, date.toEpochDay(), RideEncoding.toMinuteOfDay(start),
+                    RideEncoding.toMinuteOfDay(end), cents));
+        }
+    }
+
+    @Test
+    public void writesPriceWithOneOrTwoDecimals() throws IOException {
+        assertEquals("1,2024-02-29,00:00,23:59,12.0\n", line(1, LocalDate.of(2024, 2, 29).toEpochDay(), 0, 1439, 1200));
+        assertEquals("1,2024-02-29,00:00,23:59,12.5\n", line(1, LocalDate.of(2024, 2, 29).toEpochDay(), 0, 1439, 1250));
+        assertEquals("1,2024-02-29,00:00,23:59,0.05\n", line(1, LocalDate.of(2024, 2, 29).toEpochDay(), 0, 1439, 5));
+        assertEquals("1,2024-02-29,00:00,23:59,-3.21\n", line(1, LocalDate.of(2024, 2, 29).toEpochDay(), 0, 1439, -321));
+    }
+
+    @Test
+    public void writtenLinesParseBack() throws IOException {
+        RideCsvParser parser = new RideCsvParser();
+        Random random = new Random(5);
+        for (int i = 0; i < 5_000; i++) {
+            long epochDay = LocalDate.of(2000, 1, 1).toEpochDay() + random.nextInt(15_000);
+            int start = random.nextInt(RideEncoding.MINUTES_PER_DAY);
+            int end = random.nextInt(RideEncoding.MINUTES_PER_DAY);
+            long cents = random.nextInt(100_000);
+            String line = line(i, epochDay, start, end, cents);
+
+            assertEquals(RideCsvParser.Result.OK, parser.parse(line.substring(0, line.length() - 1)));
+            assertEquals(epochDay, parser.getEpochDay());
+            assertEquals(start, parser.getStartMinute());
+            assertEquals(end, parser.getEndMinute());
+            assertEquals(cents, parser.getPriceCents());
+        }
+    }
+
+    private static String line(long id, long epochDay, int start, int end, long cents) throws IOException {
+        StringWriter out = new StringWriter();
+        new RideCsvWriter(out).visit(id, epochDay, start, end, cents);
+        return out.toString();
+    }
+}
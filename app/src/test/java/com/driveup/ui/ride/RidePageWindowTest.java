@@ -0,0 +1,101 @@
+package com.driveup.ui.ride;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class RidePageWindowTest {
+
+    private static final LocalDate NEWEST = LocalDate.of(2024, 6, 30);
+
+    @Test
+    public void skipsRangeLeavesTheWindowUnchanged() {
+        RidePageWindow window = new RidePageWindow();
+        window.reset(page(0, 10));
+        LocalDate oldest = window.oldest().getDate();
+
+        assertTrue(window.skipsRange(oldest.minusDays(30), oldest.minusDays(1)));
+        assertFalse(window.hasOlder());
+        assertTrue(window.isBeforeWindow(oldest.minusDays(1)));
+
+        window.markOlderAvailable();
+        assertTrue(window.hasOlder());
+    }
+
+    @Test
+    public void rangeOverlappingTheWindowNeedsAReload() {
+        RidePageWindow window = new RidePageWindow();
+        window.reset(page(0, 10));
+        LocalDate oldest = window.oldest().getDate();
+
+        assertFalse(window.skipsRange(oldest.minusDays(3), oldest));
+        assertFalse(window.skipsRange(NEWEST.plusDays(1), NEWEST.plusDays(2)));
+        assertFalse(window.isBeforeWindow(oldest));
+    }
+
+    @Test
+    public void rangeNewerThanAnUnloadedHeadIsSkipped() {
+        RidePageWindow window = new RidePageWindow();
+        window.reset(page(0, RidePageWindow.PAGE_SIZE));
+        for (int i = 1; i <= RidePageWindow.MAX_PAGES; i++) {
+            window.appendOlder(page(i * RidePageWindow.PAGE_SIZE, RidePageWindow.PAGE_SIZE));
+        }
+        assertTrue(window.hasNewer());
+        LocalDate newest = window.newest().getDate();
+
+        assertTrue(window.skipsRange(newest.plusDays(1), newest.plusDays(5)));
+        assertFalse(window.isBeforeWindow(newest.plusDays(1)));
+    }
+
+    @Test
+    public void emptyWindowSkipsNothing() {
+        RidePageWindow window = new RidePageWindow();
+        window.reset(Collections.emptyList());
+
+        assertFalse(window.skipsRange(NEWEST.minusDays(1), NEWEST));
+        assertFalse(window.isBeforeWindow(NEWEST));
+    }
+
+    @Test
+    public void resetStartsANewGeneration() {
+        RidePageWindow window = new RidePageWindow();
+        window.reset(page(0, RidePageWindow.PAGE_SIZE));
+        long generation = window.getGeneration();
+
+        window.appendOlder(page(RidePageWindow.PAGE_SIZE, RidePageWindow.PAGE_SIZE));
+        window.insert(new Ride(999L, NEWEST.plusDays(1), LocalTime.of(9, 0), LocalTime.of(9, 30), 10.0));
+        window.remove(999L);
+        assertEquals(generation, window.getGeneration());
+
+        window.reset(page(0, 3));
+        assertNotEquals(generation, window.getGeneration());
+    }
+
+    @Test
+    public void insertIgnoresARideAlreadyLoaded() {
+        RidePageWindow window = new RidePageWindow();
+        List<Ride> firstPage = page(0, 10);
+        window.reset(new ArrayList<>(firstPage));
+
+        assertFalse(window.insert(firstPage.get(4)));
+        assertEquals(firstPage, window.snapshot());
+    }
+
+    /**
+     * {@code count} courses, une par jour, la première {@code offset} jours avant {@link #NEWEST}.
+     */
+    private static List<Ride> page(int offset, int count) {
+        List<Ride> rides = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rides.add(new Ride((long) (offset + i + 1), NEWEST.minusDays(offset + i),
+                    LocalTime.of(10, 0), LocalTime.of(10, 30), 12.0));
+        }
+        return rides;
+    }
+}
@@ -0,0 +1,148 @@
+package com.driveup.ui.stat;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DailyRevenueIndexTest {
+
+    private static final long START = 19_000;
+
+    private final DailyRevenueIndex index = new DailyRevenueIndex();
+    // Référence : totaux par jour, sommés naïvement
+    private final Map<Long, long[]> reference = new HashMap<>();
+
+    @Test
+    public void rangesMatchNaiveSumsAfterResizeAndShift() {
+        Random random = new Random(3);
+        add(START, 1250, 30, 1);
+        assertRanges(START - 50, START + 50);
+        // Loin après : agrandissement
+        add(START + 900, 800, 15, 1);
+        // Avant le premier jour : décalage, plusieurs fois
+        add(START - 10, 400, 20, 1);
+        add(START - 500, 999, 45, 1);
+        assertRanges(START - 600, START + 1000);
+
+        for (int i = 0; i < 2_000; i++) {
+            long day = START - 700 + random.nextInt(2_000);
+            add(day, random.nextInt(10_000), random.nextInt(300), 1);
+            if (i % 97 == 0) {
+                assertRanges(START - 800, START + 1_400);
+            }
+        }
+        assertRanges(START - 800, START + 1_400);
+    }
+
+    @Test
+    public void removalsAndClearsAreReflectedInLaterQueries() {
+        for (int i = 0; i < 60; i++) {
+            add(START + i, 100 + i, 10, 1);
+        }
+        assertRanges(START - 5, START + 65);
+
+        add(START + 10, 110, 10, -1);
+        index.clear(START + 20, START + 29);
+        for (long day = START + 20; day <= START + 29; day++) {
+            reference.remove(day);
+        }
+        assertRanges(START - 5, START + 65);
+
+        index.clear();
+        reference.clear();
+        assertEquals(0, index.rideCount(START - 100, START + 100));
+        add(START + 3, 500, 5, 1);
+        assertRanges(START - 40, START + 40);
+    }
+
+    @Test
+    public void windowsAtTheEdgesOfTheRange() {
+        for (int i = 0; i < 40; i++) {
+            add(START + i, 100, 10, 1);
+        }
+
+        // Premier jour : seule la partie de la fenêtre couverte par l'index compte
+        assertEquals(1, index.windowRideCount(START, DailyRevenueIndex.SHORT_WINDOW));
+        assertEquals(100, index.windowCents(START, DailyRevenueIndex.LONG_WINDOW));
+        assertEquals(7, index.windowRideCount(START + 6, DailyRevenueIndex.SHORT_WINDOW));
+        assertEquals(7, index.windowRideCount(START + 39, DailyRevenueIndex.SHORT_WINDOW));
+        assertEquals(3_000, index.windowCents(START + 39, DailyRevenueIndex.LONG_WINDOW));
+        // Hors de la plage, des deux côtés
+        assertEquals(0, index.windowRideCount(START - 1, DailyRevenueIndex.SHORT_WINDOW));
+        assertEquals(6, index.windowRideCount(START + 40, DailyRevenueIndex.SHORT_WINDOW));
+        assertEquals(1, index.windowRideCount(START + 45, DailyRevenueIndex.SHORT_WINDOW));
+        assertEquals(0, index.windowCents(START + 46, DailyRevenueIndex.SHORT_WINDOW));
+        assertEquals(2_400, index.windowCents(START + 45, DailyRevenueIndex.LONG_WINDOW));
+        assertWindows(START - 40, START + 80);
+    }
+
+    @Test
+    public void windowsFollowUpdatesShiftsAndGrowth() {
+        Random random = new Random(8);
+        for (int i = 0; i < 20; i++) {
+            add(START + random.nextInt(100), random.nextInt(5_000), 10, 1);
+        }
+        assertWindows(START - 40, START + 140);
+
+        // Fenêtres déjà calculées : mise à jour, décalage devant, extension derrière
+        add(START + 50, 700, 10, -1);
+        add(START - 3, 321, 10, 1);
+        assertWindows(START - 80, START + 140);
+        add(START - 200, 55, 10, 1);
+        add(START + 1_000, 66, 10, 1);
+        add(START + 1_004, 77, 10, 1);
+        assertWindows(START - 240, START + 1_040);
+
+        index.clear(START + 1_000, START + 1_002);
+        reference.remove(START + 1_000);
+        assertWindows(START + 950, START + 1_040);
+    }
+
+    private void add(long day, long cents, int minutes, int sign) {
+        index.add(day, cents, minutes, sign);
+        long[] totals = reference.computeIfAbsent(day, d -> new long[3]);
+        totals[0] += sign;
+        totals[1] += sign * cents;
+        totals[2] += (long) sign * minutes;
+    }
+
+    private long[] naive(long fromDay, long toDay) {
+        long[] sums = new long[3];
+        for (Map.Entry<Long, long[]> day : reference.entrySet()) {
+            if (day.getKey() >= fromDay && day.getKey() <= toDay) {
+                for (int i = 0; i < 3; i++) {
+                    sums[i] += day.getValue()[i];
+                }
+            }
+        }
+        return sums;
+    }
+
+    private void assertRanges(long firstDay, long lastDay) {
+        Random random = new Random(firstDay);
+        for (int i = 0; i < 200; i++) {
+            long from = firstDay + random.nextInt((int) (lastDay - firstDay + 1));
+            long to = from + random.nextInt(400) - 20;
+            long[] expected = naive(from, to);
+            String range = from + ".." + to;
+            assertEquals(range, expected[0], index.rideCount(from, to));
+            assertEquals(range, expected[1], index.cents(from, to));
+            assertEquals(range, expected[2], index.minutes(from, to));
+        }
+    }
+
+    private void assertWindows(long firstDay, long lastDay) {
+        for (long day = firstDay; day <= lastDay; day++) {
+            for (int window : new int[]{DailyRevenueIndex.SHORT_WINDOW, DailyRevenueIndex.LONG_WINDOW}) {
+                long[] expected = naive(day - window + 1, day);
+                String message = "jour " + day + ", fenêtre " + window;
+                assertEquals(message, expected[0], index.windowRideCount(day, window));
+                assertEquals(message, expected[1], index.windowCents(day, window));
+            }
+        }
+    }
+}
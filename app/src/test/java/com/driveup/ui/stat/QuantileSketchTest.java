@@ -0,0 +1,103 @@
+package com.driveup.ui.stat;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuantileSketchTest {
+
+    private static final double RELATIVE_ACCURACY = 0.02;
+    private static final double[] QUANTILES = {0, 0.01, 0.25, 0.5, 0.75, 0.9, 0.99, 1};
+
+    @Test
+    public void quantilesStayWithinRelativeAccuracy() {
+        QuantileSketch sketch = QuantileSketch.PRICE_CENTS;
+        Random random = new Random(17);
+        for (int round = 0; round < 20; round++) {
+            int size = 1 + random.nextInt(5_000);
+            long[] values = new long[size];
+            int[] counts = new int[sketch.getBucketCount()];
+            for (int i = 0; i < size; i++) {
+                // Répartition log-uniforme de 1 centime à 10 000 €
+                values[i] = Math.max(1, Math.round(Math.exp(random.nextDouble() * Math.log(1_000_000))));
+                counts[sketch.bucketOf(values[i])]++;
+            }
+            assertWithinAccuracy(sketch, values, counts, 0);
+        }
+    }
+
+    @Test
+    public void everyValueOfTheDurationRangeIsWithinAccuracy() {
+        QuantileSketch sketch = QuantileSketch.DURATION_MINUTES;
+        for (long value = 1; value <= 24 * 60; value++) {
+            int[] counts = new int[sketch.getBucketCount()];
+            counts[sketch.bucketOf(value)]++;
+            double estimate = sketch.quantile(counts, 0, 0.5);
+            assertEquals("durée " + value, value, estimate, value * RELATIVE_ACCURACY + 1e-9);
+        }
+    }
+
+    @Test
+    public void readsRowsAtAnOffsetAndMergesBySummingThem() {
+        QuantileSketch sketch = QuantileSketch.PRICE_CENTS;
+        int width = sketch.getBucketCount();
+        Random random = new Random(23);
+        long[] values = new long[3_000];
+        // Deux lignes mensuelles rangées après une ligne inutilisée, comme dans StatAggregateStore
+        int[] rows = new int[3 * width];
+        int[] merged = new int[width];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = 100 + random.nextInt(20_000);
+            int bucket = sketch.bucketOf(values[i]);
+            rows[(i % 2 == 0 ? 1 : 2) * width + bucket]++;
+        }
+        for (int bucket = 0; bucket < width; bucket++) {
+            merged[bucket] = rows[width + bucket] + rows[2 * width + bucket];
+        }
+
+        assertWithinAccuracy(sketch, values, merged, 0);
+        long[] even = new long[values.length / 2];
+        for (int i = 0; i < even.length; i++) {
+            even[i] = values[2 * i];
+        }
+        assertWithinAccuracy(sketch, even, rows, width);
+    }
+
+    @Test
+    public void removedValuesNoLongerCount() {
+        QuantileSketch sketch = QuantileSketch.PRICE_CENTS;
+        int[] counts = new int[sketch.getBucketCount()];
+        counts[sketch.bucketOf(1_000)]++;
+        counts[sketch.bucketOf(50_000)]++;
+        counts[sketch.bucketOf(50_000)]--;
+
+        assertEquals(1_000, sketch.quantile(counts, 0, 0.99), 1_000 * RELATIVE_ACCURACY);
+    }
+
+    @Test
+    public void nonPositiveAndOversizedValuesUseTheEdgeBuckets() {
+        QuantileSketch sketch = QuantileSketch.PRICE_CENTS;
+        assertEquals(0, sketch.bucketOf(0));
+        assertEquals(0, sketch.bucketOf(-250));
+        assertEquals(sketch.getBucketCount() - 1, sketch.bucketOf(Long.MAX_VALUE));
+
+        int[] counts = new int[sketch.getBucketCount()];
+        assertEquals(0, sketch.quantile(counts, 0, 0.5), 0);
+        counts[sketch.bucketOf(-250)]++;
+        assertEquals(0, sketch.quantile(counts, 0, 0.5), 0);
+    }
+
+    private static void assertWithinAccuracy(QuantileSketch sketch, long[] values, int[] counts, int offset) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            long exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+            double estimate = sketch.quantile(counts, offset, q);
+            assertEquals("q=" + q + " sur " + sorted.length + " valeurs", exact, estimate,
+                    exact * RELATIVE_ACCURACY + 1e-9);
+        }
+    }
+}
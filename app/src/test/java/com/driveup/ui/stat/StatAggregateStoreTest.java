@@ -0,0 +1,286 @@
+package com.driveup.ui.stat;
+
+import com.driveup.RideEncoding;
+import com.driveup.RideStatsSnapshot;
+import com.driveup.ui.ride.Ride;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.*;
+
+public class StatAggregateStoreTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2024, 3, 20);
+
+    @Test
+    public void insertThenDeleteLeavesAnEmptyStore() {
+        StatAggregateStore store = newStore();
+        Ride ride = ride(2024, 3, 18, "23:10", "01:20", 42.37);
+
+        assertTrue(store.apply(ride, 1, 0));
+        assertTrue(store.apply(ride, -1, 1));
+
+        assertEquals(1, store.getVersion());
+        assertSameStats(rebuilt(1), store);
+        assertEquals(0, store.totalStats().getTotalRides());
+        assertTrue(store.dayOfWeekStats().getStatsByMonth().isEmpty());
+        assertEquals(0, store.rangeStats(TODAY.minusDays(30), TODAY).getRideCount());
+    }
+
+    @Test
+    public void deltasMatchARebuildOfTheSameRides() {
+        List<Ride> rides = sampleRides();
+        StatAggregateStore store = newStore();
+        long version = StatAggregateStore.NO_VERSION;
+        for (Ride ride : rides) {
+            assertTrue(store.apply(ride, 1, ++version));
+        }
+        // Suppression d'une course sur deux : chaque retrait annule exactement son ajout
+        List<Ride> kept = new ArrayList<>();
+        for (int i = 0; i < rides.size(); i++) {
+            if (i % 2 == 0) {
+                assertTrue(store.apply(rides.get(i), -1, ++version));
+            } else {
+                kept.add(rides.get(i));
+            }
+        }
+
+        assertSameStats(rebuilt(version, kept), store);
+    }
+
+    @Test
+    public void skippedVersionIsRejectedWithoutChangingTheState() {
+        StatAggregateStore store = newStore();
+        store.rebuild(snapshot(5, sampleRides()));
+        Ride extra = ride(2024, 3, 19, "10:00", "10:45", 18.5);
+
+        assertFalse(store.apply(extra, 1, 7));
+        assertEquals(5, store.getVersion());
+        assertSameStats(rebuilt(5, sampleRides()), store);
+
+        // Écriture déjà incluse dans l'état : acceptée mais sans effet
+        assertTrue(store.apply(extra, 1, 5));
+        assertSameStats(rebuilt(5, sampleRides()), store);
+
+        assertTrue(store.apply(extra, 1, 6));
+        assertEquals(6, store.getVersion());
+        assertSameStats(rebuilt(6, with(sampleRides(), extra)), store);
+    }
+
+    @Test
+    public void wipeClearsOnlyTheNextVersion() {
+        StatAggregateStore store = newStore();
+        store.rebuild(snapshot(3, sampleRides()));
+
+        assertFalse(store.wipe(5));
+        assertEquals(3, store.getVersion());
+        assertTrue(store.wipe(2));
+        assertEquals(sampleRides().size(), store.totalStats().getTotalRides());
+
+        assertTrue(store.wipe(4));
+        assertEquals(4, store.getVersion());
+        assertSameStats(rebuilt(4), store);
+
+        // Les courses ajoutées après la remise à zéro repartent d'une plage vide
+        Ride ride = ride(2021, 7, 2, "08:00", "09:00", 20);
+        assertTrue(store.apply(ride, 1, 5));
+        assertSameStats(rebuilt(5, Collections.singletonList(ride)), store);
+    }
+
+    @Test
+    public void monthRangeGrowsInBothDirections() {
+        List<Ride> rides = Arrays.asList(
+                ride(2024, 6, 15, "12:00", "12:30", 10),
+                // Avant le premier mois : décalage des lignes existantes
+                ride(2023, 1, 3, "07:00", "08:00", 20),
+                // Bien après la capacité initiale : agrandissement
+                ride(2026, 12, 31, "22:00", "02:00", 30),
+                // Encore avant, de plus que la marge déjà ajoutée
+                ride(2018, 3, 4, "18:00", "18:20", 40),
+                ride(2024, 6, 16, "13:00", "13:30", 50));
+        StatAggregateStore store = newStore();
+        long version = StatAggregateStore.NO_VERSION;
+        for (Ride ride : rides) {
+            assertTrue(store.apply(ride, 1, ++version));
+        }
+
+        assertSameStats(rebuilt(version, rides), store);
+        assertEquals(Arrays.asList("2018-03", "2023-01", "2024-06", "2026-12"),
+                new ArrayList<>(store.dayOfWeekStats().getStatsByMonth().keySet()));
+        assertEquals(2, store.heatmap("2024-06").getRideCounts()[5 * 24 + 12]
+                + store.heatmap("2024-06").getRideCounts()[6 * 24 + 13]);
+    }
+
+    @Test
+    public void replaceMonthsOnlyTouchesItsSubrange() {
+        List<Ride> before = sampleRides();
+        StatAggregateStore store = newStore();
+        store.rebuild(snapshot(1, before));
+
+        // Deux lots d'import en février 2024 (versions 2 et 3), relus en une fois
+        List<Ride> after = new ArrayList<>(before);
+        after.add(ride(2024, 2, 10, "09:00", "09:40", 12.3));
+        after.add(ride(2024, 2, 29, "23:30", "00:30", 45));
+        int february = 2024 * 12 + 1;
+
+        assertTrue(store.replaceMonths(snapshot(3, inMonths(after, february, february)), february, february, 1));
+
+        assertEquals(3, store.getVersion());
+        assertSameStats(rebuilt(3, after), store);
+    }
+
+    @Test
+    public void replaceMonthsCanExtendTheRange() {
+        StatAggregateStore store = newStore();
+        store.rebuild(snapshot(1, sampleRides()));
+        List<Ride> after = new ArrayList<>(sampleRides());
+        after.add(ride(2015, 5, 5, "10:00", "11:00", 9));
+        after.add(ride(2015, 6, 6, "10:00", "11:00", 9));
+        int may = 2015 * 12 + 4;
+
+        assertTrue(store.replaceMonths(snapshot(2, inMonths(after, may, may + 1)), may, may + 1, 1));
+
+        assertSameStats(rebuilt(2, after), store);
+    }
+
+    @Test
+    public void replaceMonthsRequiresTheBaseVersion() {
+        StatAggregateStore store = newStore();
+        store.rebuild(snapshot(4, sampleRides()));
+        int march = 2024 * 12 + 2;
+
+        // Une écriture entre la version de base et l'état courant : il faut tout reconstruire
+        assertFalse(store.replaceMonths(snapshot(6, Collections.emptyList()), march, march, 3));
+        // Instantané déjà dépassé : rien à faire
+        assertTrue(store.replaceMonths(snapshot(4, Collections.emptyList()), march, march, 3));
+
+        assertEquals(4, store.getVersion());
+        assertSameStats(rebuilt(4, sampleRides()), store);
+    }
+
+    @Test
+    public void olderRebuildDoesNotOverwriteNewerDeltas() {
+        StatAggregateStore store = newStore();
+        store.rebuild(snapshot(1, sampleRides()));
+        Ride extra = ride(2024, 3, 19, "10:00", "10:45", 18.5);
+        assertTrue(store.apply(extra, 1, 2));
+
+        store.rebuild(snapshot(1, sampleRides()));
+
+        assertEquals(2, store.getVersion());
+        assertSameStats(rebuilt(2, with(sampleRides(), extra)), store);
+    }
+
+    private static StatAggregateStore newStore() {
+        return new StatAggregateStore(TimeSlotClassifier.QUARTERS);
+    }
+
+    private static StatAggregateStore rebuilt(long version) {
+        return rebuilt(version, Collections.emptyList());
+    }
+
+    private static StatAggregateStore rebuilt(long version, List<Ride> rides) {
+        StatAggregateStore store = newStore();
+        store.rebuild(snapshot(version, rides));
+        return store;
+    }
+
+    private static void assertSameStats(StatAggregateStore expected, StatAggregateStore actual) {
+        assertEquals(expected.totalStats(), actual.totalStats());
+        assertEquals(expected.dayOfWeekStats(), actual.dayOfWeekStats());
+        assertEquals(expected.timeSlotStats(), actual.timeSlotStats());
+        assertEquals(expected.distributionStats(), actual.distributionStats());
+        assertEquals(expected.trendStats(TODAY), actual.trendStats(TODAY));
+        assertEquals(expected.rangeStats(LocalDate.of(2010, 1, 1), TODAY),
+                actual.rangeStats(LocalDate.of(2010, 1, 1), TODAY));
+        HeatmapStats expectedHeatmap = expected.heatmap(null);
+        assertEquals(expectedHeatmap, actual.heatmap(null));
+        for (String period : expectedHeatmap.getPeriods()) {
+            assertEquals(expected.heatmap(period), actual.heatmap(period));
+        }
+    }
+
+    /**
+     * Instantané tel que le lirait DataBaseHelper : groupes mois × jour agrégés, colonnes triées par date.
+     */
+    private static RideStatsSnapshot snapshot(long version, List<Ride> rides) {
+        List<Ride> sorted = new ArrayList<>(rides);
+        sorted.sort(Comparator.comparing(Ride::getDate));
+        Map<Long, long[]> groups = new TreeMap<>();
+        long totalCents = 0;
+        long[] epochDays = new long[sorted.size()];
+        int[] startMinutes = new int[sorted.size()];
+        int[] endMinutes = new int[sorted.size()];
+        long[] priceCents = new long[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            Ride ride = sorted.get(i);
+            epochDays[i] = ride.getDate().toEpochDay();
+            startMinutes[i] = RideEncoding.toMinuteOfDay(ride.getStartHour());
+            endMinutes[i] = RideEncoding.toMinuteOfDay(ride.getEndHour());
+            priceCents[i] = RideEncoding.toCents(ride.getPrice());
+            totalCents += priceCents[i];
+            long key = RideEncoding.toAbsoluteMonth(epochDays[i]) * 7L + RideEncoding.toWeekdayIndex(epochDays[i]);
+            long[] group = groups.computeIfAbsent(key, k -> new long[2]);
+            group[0]++;
+            group[1] += priceCents[i];
+        }
+
+        int[] groupMonths = new int[groups.size()];
+        int[] groupWeekdays = new int[groups.size()];
+        int[] groupRideCounts = new int[groups.size()];
+        long[] groupCents = new long[groups.size()];
+        int index = 0;
+        for (Map.Entry<Long, long[]> group : groups.entrySet()) {
+            groupMonths[index] = (int) (group.getKey() / 7);
+            groupWeekdays[index] = (int) (group.getKey() % 7);
+            groupRideCounts[index] = (int) group.getValue()[0];
+            groupCents[index] = group.getValue()[1];
+            index++;
+        }
+        return new RideStatsSnapshot(version, sorted.size(), totalCents, groupMonths, groupWeekdays,
+                groupRideCounts, groupCents, epochDays, startMinutes, endMinutes, priceCents);
+    }
+
+    private static List<Ride> inMonths(List<Ride> rides, int fromMonth, int toMonth) {
+        List<Ride> selected = new ArrayList<>();
+        for (Ride ride : rides) {
+            int month = RideEncoding.toAbsoluteMonth(ride.getDate().toEpochDay());
+            if (month >= fromMonth && month <= toMonth) {
+                selected.add(ride);
+            }
+        }
+        return selected;
+    }
+
+    private static List<Ride> with(List<Ride> rides, Ride extra) {
+        List<Ride> all = new ArrayList<>(rides);
+        all.add(extra);
+        return all;
+    }
+
+    private static List<Ride> sampleRides() {
+        return Arrays.asList(
+                ride(2023, 12, 31, "22:15", "00:45", 35.5),
+                ride(2024, 1, 1, "06:00", "06:20", 12),
+                ride(2024, 1, 15, "17:45", "18:30", 22.4),
+                ride(2024, 2, 1, "08:00", "08:00", 150),
+                ride(2024, 2, 29, "12:00", "13:15", 27.99),
+                ride(2024, 3, 2, "00:00", "00:10", 7.1),
+                ride(2024, 3, 14, "19:30", "21:00", 31),
+                ride(2024, 3, 20, "11:00", "11:35", 19.9));
+    }
+
+    private static Ride ride(int year, int month, int day, String start, String end, double price) {
+        return new Ride(null, LocalDate.of(year, month, day), LocalTime.parse(start), LocalTime.parse(end), price);
+    }
+}
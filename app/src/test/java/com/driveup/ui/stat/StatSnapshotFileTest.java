@@ -0,0 +1,120 @@
+package com.driveup.ui.stat;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class StatSnapshotFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void roundTripKeepsEveryValueAndOrder() throws IOException {
+        StatSnapshotFile file = new StatSnapshotFile(folder.getRoot());
+        StatSnapshotFile.Snapshot written = sampleSnapshot(42);
+
+        file.write(written);
+
+        assertEquals(written, new StatSnapshotFile(folder.getRoot()).read());
+    }
+
+    @Test
+    public void roundTripKeepsMissingRangeAndHeatmapPeriod() throws IOException {
+        StatSnapshotFile file = new StatSnapshotFile(folder.getRoot());
+        StatSnapshotFile.Snapshot written = sampleSnapshot(3);
+        written.setRangeStats(null);
+        written.setTimeSlotScheme(TimeSlotClassifier.RUSH_HOURS.getId());
+        written.setHeatmap(new HeatmapStats(Collections.emptyList(), null,
+                new int[HeatmapStats.CELL_COUNT], new double[HeatmapStats.CELL_COUNT], 0));
+
+        file.write(written);
+
+        assertEquals(written, new StatSnapshotFile(folder.getRoot()).read());
+    }
+
+    @Test
+    public void missingFileReadsAsNull() throws IOException {
+        assertNull(new StatSnapshotFile(folder.getRoot()).read());
+    }
+
+    @Test
+    public void olderVersionDoesNotOverwriteNewer() throws IOException {
+        StatSnapshotFile file = new StatSnapshotFile(folder.getRoot());
+        file.write(sampleSnapshot(7));
+        file.write(sampleSnapshot(5));
+
+        assertEquals(7, file.read().getDataVersion());
+    }
+
+    @Test
+    public void sameVersionIsRewrittenForAnotherLayout() throws IOException {
+        StatSnapshotFile file = new StatSnapshotFile(folder.getRoot());
+        file.write(sampleSnapshot(7));
+        StatSnapshotFile.Snapshot hourly = sampleSnapshot(7);
+        hourly.setTimeSlotScheme(TimeSlotClassifier.HOURLY.getId());
+        file.write(hourly);
+
+        assertEquals(TimeSlotClassifier.HOURLY.getId(), file.read().getTimeSlotScheme());
+    }
+
+    @Test(expected = IOException.class)
+    public void foreignFileIsRejected() throws IOException {
+        try (FileOutputStream out = new FileOutputStream(new File(folder.getRoot(), "stat_snapshot.bin"))) {
+            out.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        }
+        new StatSnapshotFile(folder.getRoot()).read();
+    }
+
+    private static StatSnapshotFile.Snapshot sampleSnapshot(long version) {
+        Map<String, List<DayOfWeekStats.DayStats>> daysByMonth = new LinkedHashMap<>();
+        daysByMonth.put("2024-02", Arrays.asList(
+                new DayOfWeekStats.DayStats("Lundi", 2, 2024, 3, 45.5),
+                new DayOfWeekStats.DayStats("Mardi", 2, 2024, 0, 0)));
+        daysByMonth.put("2023-12", Collections.singletonList(
+                new DayOfWeekStats.DayStats("Dimanche", 12, 2023, 1, 12.25)));
+        Map<Integer, List<DayOfWeekStats.DayStats>> daysByYear = new LinkedHashMap<>();
+        daysByYear.put(2024, Collections.singletonList(new DayOfWeekStats.DayStats("Lundi", 0, 2024, 3, 45.5)));
+
+        Map<String, List<TimeSlotStats.TimeSlotData>> slotsByMonth = new LinkedHashMap<>();
+        slotsByMonth.put("2024-02", Collections.singletonList(
+                new TimeSlotStats.TimeSlotData("06:00-12:00", 2, 2024, 3, 45.5)));
+        Map<Integer, List<TimeSlotStats.TimeSlotData>> slotsByYear = new LinkedHashMap<>();
+        slotsByYear.put(2024, Collections.singletonList(
+                new TimeSlotStats.TimeSlotData("06:00-12:00", 0, 2024, 3, 45.5)));
+
+        int[] heatCounts = new int[HeatmapStats.CELL_COUNT];
+        double[] heatAmounts = new double[HeatmapStats.CELL_COUNT];
+        heatCounts[7] = 2;
+        heatAmounts[7] = 30.25;
+        heatAmounts[8] = 15.25;
+        HeatmapStats heatmap = new HeatmapStats(Arrays.asList("2023-12", "2024-02", "2023", "2024"), "2024-02",
+                heatCounts, heatAmounts, 30.25);
+
+        TrendStats trend = new TrendStats(LocalDate.of(2024, 1, 1), new double[]{1.5, 0, 2.25},
+                new double[]{0.5, 0.5, 0.75}, new double[]{1, 0, 1}, new double[]{0.25, 0.25, 0.5});
+
+        Map<String, DistributionStats.Distribution> distributionByMonth = new LinkedHashMap<>();
+        distributionByMonth.put("2024-02", new DistributionStats.Distribution(3, 15.1, 20.2, 20.2, 30, 45, 45));
+        Map<Integer, DistributionStats.Distribution> distributionByYear = new LinkedHashMap<>();
+        distributionByYear.put(2024, new DistributionStats.Distribution(3, 15.1, 20.2, 20.2, 30, 45, 45));
+
+        RangeStats range = new RangeStats(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29), 3, 45.5, 95);
+
+        return new StatSnapshotFile.Snapshot(version, TimeSlotClassifier.QUARTERS.getId(), new TotalStats(4, 57.75),
+                new DayOfWeekStats(daysByMonth, daysByYear), new TimeSlotStats(slotsByMonth, slotsByYear),
+                heatmap, trend, new DistributionStats(distributionByMonth, distributionByYear), range);
+    }
+}
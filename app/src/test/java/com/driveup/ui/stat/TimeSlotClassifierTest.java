@@ -0,0 +1,89 @@
+package com.driveup.ui.stat;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TimeSlotClassifierTest {
+
+    private static final TimeSlotClassifier QUARTERS = TimeSlotClassifier.QUARTERS;
+    private static final TimeSlotClassifier HOURLY = TimeSlotClassifier.HOURLY;
+    private static final TimeSlotClassifier RUSH_HOURS = TimeSlotClassifier.RUSH_HOURS;
+
+    @Test
+    public void classifiesRidesOnSlotBoundaries() {
+        assertEquals(0, QUARTERS.classify(minute(0, 0), minute(0, 30)));
+        assertEquals(1, QUARTERS.classify(minute(6, 0), minute(6, 30)));
+        // Fin exactement sur la limite : la minute de fin n'est pas comptée
+        assertEquals(1, QUARTERS.classify(minute(11, 0), minute(12, 0)));
+        assertEquals(3, QUARTERS.classify(minute(18, 0), minute(23, 59)));
+        assertEquals(2, QUARTERS.classify(minute(17, 0), minute(18, 30)));
+        assertEquals(3, QUARTERS.classify(minute(17, 30), minute(19, 0)));
+    }
+
+    @Test
+    public void firstSlotWinsOnTie() {
+        assertEquals(0, QUARTERS.classify(minute(5, 0), minute(7, 0)));
+        assertEquals(0, QUARTERS.classify(minute(5, 59), minute(6, 1)));
+        assertEquals(1, QUARTERS.classify(minute(11, 0), minute(13, 0)));
+    }
+
+    @Test
+    public void countsBothSidesOfMidnight() {
+        assertEquals(0, QUARTERS.classify(minute(23, 0), minute(2, 0)));
+        assertEquals(3, QUARTERS.classify(minute(22, 0), minute(1, 0)));
+        assertEquals(3, QUARTERS.classify(minute(23, 0), minute(0, 0)));
+        assertEquals(23, HOURLY.classify(minute(23, 50), minute(0, 5)));
+        assertEquals(0, HOURLY.classify(minute(23, 55), minute(0, 10)));
+    }
+
+    @Test
+    public void zeroLengthRideLastsAWholeDay() {
+        // Début et fin égaux : 24 heures, six heures dans chaque quart, la première plage l'emporte
+        assertEquals(0, QUARTERS.classify(minute(10, 0), minute(10, 0)));
+        assertEquals(0, HOURLY.classify(minute(15, 30), minute(15, 30)));
+        // 5h30 de pointe contre 18h30 creuses
+        assertEquals(1, RUSH_HOURS.classify(minute(8, 0), minute(8, 0)));
+    }
+
+    @Test
+    public void groupsSeveralSegmentsIntoOneSlot() {
+        assertEquals(2, RUSH_HOURS.getSlotCount());
+        assertEquals(0, RUSH_HOURS.classify(minute(7, 0), minute(9, 30)));
+        assertEquals(0, RUSH_HOURS.classify(minute(16, 30), minute(19, 30)));
+        assertEquals(1, RUSH_HOURS.classify(minute(9, 0), minute(10, 30)));
+        assertEquals(1, RUSH_HOURS.classify(minute(22, 0), minute(6, 0)));
+    }
+
+    @Test
+    public void hourlyLayoutHasOneSlotPerHour() {
+        assertEquals(24, HOURLY.getSlotCount());
+        assertEquals("08:00-09:00", HOURLY.getLabel(8));
+        assertEquals("23:00-00:00", HOURLY.getLabel(23));
+        assertEquals(8, HOURLY.classify(minute(8, 15), minute(8, 45)));
+        assertEquals(9, HOURLY.classify(minute(8, 50), minute(9, 20)));
+    }
+
+    @Test
+    public void resolvesLayoutsById() {
+        assertSame(QUARTERS, TimeSlotClassifier.forId(QUARTERS.getId()));
+        assertSame(HOURLY, TimeSlotClassifier.forId(HOURLY.getId()));
+        assertSame(RUSH_HOURS, TimeSlotClassifier.forId(RUSH_HOURS.getId()));
+        assertSame(QUARTERS, TimeSlotClassifier.forId(null));
+        assertSame(QUARTERS, TimeSlotClassifier.forId("inconnu"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsLayoutNotStartingAtMidnight() {
+        new TimeSlotClassifier("test", new int[]{60, 120}, new int[]{0, 1}, new String[]{"a", "b"});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownSlot() {
+        new TimeSlotClassifier("test", new int[]{0, 120}, new int[]{0, 2}, new String[]{"a", "b"});
+    }
+
+    private static int minute(int hour, int minute) {
+        return hour * 60 + minute;
+    }
+}